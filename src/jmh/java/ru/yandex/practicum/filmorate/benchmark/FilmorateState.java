@@ -0,0 +1,151 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Seeds a fresh database with the configured volumes once per trial.
+ * Volumes can be overridden from the command line, e.g. {@code -p films=100000 -p likesPerUser=50}.
+ */
+@State(Scope.Benchmark)
+public class FilmorateState {
+    static final int CHUNK_SIZE = 1000;
+
+    @Param("10000")
+    public int films;
+
+    @Param("10000")
+    public int users;
+
+    @Param("20")
+    public int likesPerUser;
+
+    @Param("20")
+    public int friendsPerUser;
+
+    AnnotationConfigApplicationContext context;
+    FilmService filmService;
+    UserService userService;
+    long[] filmIds;
+    long[] userIds;
+    long idleUserId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(BenchmarkConfig.class);
+        filmService = context.getBean(FilmService.class);
+        userService = context.getBean(UserService.class);
+
+        final FilmStorage filmStorage = context.getBean(FilmStorage.class);
+        final UserStorage userStorage = context.getBean(UserStorage.class);
+        final Random random = new Random(42);
+
+        filmIds = new long[films];
+        for (int from = 0; from < films; from += CHUNK_SIZE) {
+            final List<Film> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(films, from + CHUNK_SIZE); i++) {
+                chunk.add(newFilm(i, random));
+            }
+            final List<Film> created = filmStorage.createAll(chunk);
+            for (int i = 0; i < created.size(); i++) {
+                filmIds[from + i] = created.get(i).getId();
+            }
+        }
+
+        userIds = new long[users];
+        for (int from = 0; from < users; from += CHUNK_SIZE) {
+            final List<User> chunk = new ArrayList<>();
+            for (int i = from; i < Math.min(users, from + CHUNK_SIZE); i++) {
+                chunk.add(newUser(i));
+            }
+            final List<User> created = userStorage.createAll(chunk);
+            for (int i = 0; i < created.size(); i++) {
+                userIds[from + i] = created.get(i).getId();
+            }
+        }
+        idleUserId = userStorage.create(newUser(users)).getId();
+
+        final List<FilmLike> likes = new ArrayList<>();
+        final List<Friendship> friendships = new ArrayList<>();
+        for (long userId : userIds) {
+            for (int i = 0; i < likesPerUser; i++) {
+                likes.add(new FilmLike(filmIds[random.nextInt(films)], userId));
+            }
+            for (int i = 0; i < friendsPerUser; i++) {
+                final long friendId = userIds[random.nextInt(users)];
+                if (friendId != userId) {
+                    friendships.add(new Friendship(userId, friendId));
+                }
+            }
+            if (likes.size() >= CHUNK_SIZE) {
+                filmStorage.addLikes(likes);
+                likes.clear();
+            }
+            if (friendships.size() >= CHUNK_SIZE) {
+                userStorage.addFriends(friendships);
+                friendships.clear();
+            }
+        }
+        filmStorage.addLikes(likes);
+        userStorage.addFriends(friendships);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    long randomFilmId() {
+        return filmIds[ThreadLocalRandom.current().nextInt(filmIds.length)];
+    }
+
+    long randomUserId() {
+        return userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+    }
+
+    static Film newFilm(int number, Random random) {
+        final Film film = new Film();
+        film.setName("Фильм " + number);
+        film.setDescription("Описание фильма " + number);
+        film.setReleaseDate(LocalDate.of(1950 + random.nextInt(70), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+        film.setDuration(60 + random.nextInt(120));
+        film.setMpa(new MpaRating(1 + random.nextInt(5), null));
+        final Set<Genre> genres = new LinkedHashSet<>();
+        genres.add(new Genre(1 + random.nextInt(6), null));
+        genres.add(new Genre(1 + random.nextInt(6), null));
+        film.setGenres(genres);
+        return film;
+    }
+
+    static User newUser(int number) {
+        final User user = new User();
+        user.setEmail("user" + number + "@filmorate.ru");
+        user.setLogin("user" + number);
+        user.setName("Пользователь " + number);
+        user.setBirthday(LocalDate.of(1990, 1, 1).plusDays(number % 10000));
+        return user;
+    }
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Benchmark
+    public Collection<Film> getMostLiked(FilmorateState state) {
+        return state.filmService.getMostLiked(10);
+    }
+
+    @Benchmark
+    public Collection<Film> getMostLikedOfGenreAndRating(FilmorateState state) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        return state.filmService.getMostLiked(10, 1 + random.nextInt(6), null, 1 + random.nextInt(5));
+    }
+
+    @Benchmark
+    public Collection<Film> getMostLikedOfYear(FilmorateState state) {
+        return state.filmService.getMostLiked(10, null, 1950 + ThreadLocalRandom.current().nextInt(70), null);
+    }
+
+    @Benchmark
+    public FilmFacets getPopularFacets(FilmorateState state) {
+        return state.filmService.getPopularFacets(1 + ThreadLocalRandom.current().nextInt(6), null, null);
+    }
+
+    @Benchmark
+    public Film getById(FilmorateState state) {
+        return state.filmService.getById(state.randomFilmId());
+    }
+
+    @Benchmark
+    public Collection<Film> findAll(FilmorateState state) {
+        return state.filmService.findAll();
+    }
+
+    @Benchmark
+    public Collection<User> getFriends(FilmorateState state) {
+        return state.userService.getFriends(state.randomUserId());
+    }
+
+    @Benchmark
+    public Collection<User> getCommonFriends(FilmorateState state) {
+        final long userId = state.randomUserId();
+        long otherId = state.randomUserId();
+        if (otherId == userId) {
+            otherId = state.idleUserId;
+        }
+        return state.userService.getCommonFriends(userId, otherId);
+    }
+
+    @Benchmark
+    public Collection<User> getFriendSuggestions(FilmorateState state) {
+        return state.userService.getFriendSuggestions(state.randomUserId(), 10);
+    }
+
+    @Benchmark
+    public Collection<Film> getRecommendations(FilmorateState state) {
+        return state.filmService.getRecommendations(state.randomUserId(), 10);
+    }
+
+    @Benchmark
+    public void addLike(FilmorateState state) {
+        // the idle user never likes anything else, so the like can be removed again to keep volumes stable
+        final long filmId = state.randomFilmId();
+        state.filmService.addLike(filmId, state.idleUserId);
+        state.filmService.deleteLike(filmId, state.idleUserId);
+    }
+
+    @Benchmark
+    public Film create(FilmorateState state) {
+        return state.filmService.create(FilmorateState.newFilm(0, ThreadLocalRandom.current()));
+    }
+
+    @Benchmark
+    public Film update(FilmorateState state) {
+        final Film film = FilmorateState.newFilm(0, ThreadLocalRandom.current());
+        film.setId(state.randomFilmId());
+        return state.filmService.update(film);
+    }
+}
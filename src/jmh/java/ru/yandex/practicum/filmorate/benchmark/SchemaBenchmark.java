@@ -0,0 +1,183 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the repository access patterns as plain SQL against the same data under two schema versions:
+ * {@code before} stops after the initial schema and reference data (V2), {@code after} applies all migrations
+ * (composite indexes and films.likes_count).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaBenchmark {
+
+    static final String SQL_MOST_LIKED_BY_GROUPING = """
+            SELECT film_id
+            FROM film_likes
+            GROUP BY film_id
+            ORDER BY COUNT(user_id) DESC, film_id
+            LIMIT 10
+            """;
+
+    static final String SQL_MOST_LIKED_BY_COUNTER = """
+            SELECT film_id
+            FROM films
+            ORDER BY likes_count DESC, film_id
+            LIMIT 10
+            """;
+
+    @Param({"before", "after"})
+    public String schema;
+
+    @Param("10000")
+    public int films;
+
+    @Param("10000")
+    public int users;
+
+    @Param("20")
+    public int likesPerUser;
+
+    @Param("20")
+    public int friendsPerUser;
+
+    HikariDataSource dataSource;
+    JdbcTemplate jdbc;
+    long idleUserId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:schema-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("password");
+        jdbc = new JdbcTemplate(dataSource);
+
+        Flyway.configure().dataSource(dataSource).target("2").load().migrate();
+        seed(new Random(42));
+        if ("after".equals(schema)) {
+            Flyway.configure().dataSource(dataSource).load().migrate();
+        }
+        jdbc.execute("ANALYZE");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<Long> mostLiked() {
+        return jdbc.queryForList("after".equals(schema) ? SQL_MOST_LIKED_BY_COUNTER : SQL_MOST_LIKED_BY_GROUPING,
+                Long.class);
+    }
+
+    @Benchmark
+    public List<Long> followersOfUser() {
+        return jdbc.queryForList("SELECT user_id FROM user_friends WHERE friend_id = ?", Long.class, randomUserId());
+    }
+
+    @Benchmark
+    public List<Long> filmsLikedByUser() {
+        return jdbc.queryForList("SELECT film_id FROM film_likes WHERE user_id = ?", Long.class, randomUserId());
+    }
+
+    @Benchmark
+    public List<Long> filmsOfGenre() {
+        return jdbc.queryForList("SELECT film_id FROM film_genres WHERE genre_id = ? ORDER BY film_id LIMIT 100",
+                Long.class, 1 + ThreadLocalRandom.current().nextInt(6));
+    }
+
+    @Benchmark
+    public Long filmsOfRatingAndDecade() {
+        final int decade = 1950 + 10 * ThreadLocalRandom.current().nextInt(7);
+        return jdbc.queryForObject("""
+                        SELECT COUNT(film_id)
+                        FROM films
+                        WHERE mpa_id = ? AND release_date BETWEEN ? AND ?
+                        """, Long.class, 1 + ThreadLocalRandom.current().nextInt(5),
+                Date.valueOf(LocalDate.of(decade, 1, 1)), Date.valueOf(LocalDate.of(decade + 9, 12, 31)));
+    }
+
+    @Benchmark
+    public void likeAndUnlike() {
+        final long filmId = 1 + ThreadLocalRandom.current().nextInt(films);
+        jdbc.update("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", filmId, idleUserId);
+        if ("after".equals(schema)) {
+            jdbc.update("UPDATE films SET likes_count = likes_count + 1 WHERE film_id = ?", filmId);
+        }
+        jdbc.update("DELETE FROM film_likes WHERE film_id = ? AND user_id = ?", filmId, idleUserId);
+        if ("after".equals(schema)) {
+            jdbc.update("UPDATE films SET likes_count = likes_count - 1 WHERE film_id = ?", filmId);
+        }
+    }
+
+    private long randomUserId() {
+        return 1 + ThreadLocalRandom.current().nextInt(users);
+    }
+
+    private void seed(Random random) {
+        final List<Object[]> filmRows = new ArrayList<>();
+        final List<Object[]> genreRows = new ArrayList<>();
+        for (long id = 1; id <= films; id++) {
+            filmRows.add(new Object[]{id, "Фильм " + id, "Описание фильма " + id,
+                    Date.valueOf(LocalDate.of(1950 + random.nextInt(70), 1 + random.nextInt(12), 1 + random.nextInt(28))),
+                    60 + random.nextInt(120), 1 + random.nextInt(5)});
+            final int genre = 1 + random.nextInt(6);
+            genreRows.add(new Object[]{id, genre});
+            genreRows.add(new Object[]{id, 1 + genre % 6});
+        }
+        jdbc.batchUpdate("""
+                INSERT INTO films (film_id, film_name, description, release_date, duration, mpa_id)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """, filmRows);
+        jdbc.batchUpdate("INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", genreRows);
+
+        final List<Object[]> userRows = new ArrayList<>();
+        for (long id = 1; id <= users + 1; id++) {
+            userRows.add(new Object[]{id, "user" + id + "@filmorate.ru", "user" + id});
+        }
+        jdbc.batchUpdate("INSERT INTO users (user_id, email, login) VALUES (?, ?, ?)", userRows);
+        idleUserId = users + 1;
+
+        final List<Object[]> likeRows = new ArrayList<>();
+        final List<Object[]> friendRows = new ArrayList<>();
+        for (long id = 1; id <= users; id++) {
+            final long userId = id;
+            random.longs(likesPerUser, 1, films + 1).distinct()
+                    .forEach(filmId -> likeRows.add(new Object[]{filmId, userId}));
+            random.longs(friendsPerUser, 1, users + 1).distinct().filter(friendId -> friendId != userId)
+                    .forEach(friendId -> friendRows.add(new Object[]{userId, friendId}));
+        }
+        jdbc.batchUpdate("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", likeRows);
+        jdbc.batchUpdate("INSERT INTO user_friends (user_id, friend_id) VALUES (?, ?)", friendRows);
+    }
+}
@@ -0,0 +1,151 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.dal.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.dal.index.FilmSearchIndex;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the inverted search index with a {@code LIKE '%q%'} scan over the same synthetic Russian-language
+ * catalog. Both return the ten most liked matching film ids for a random word (or its first letters).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class SearchBenchmark {
+
+    static final int CHUNK_SIZE = 10_000;
+    static final String[] SYLLABLES = {
+            "ба", "ве", "го", "да", "же", "за", "ки", "ло", "ма", "не", "ос", "пу", "ра", "си", "то", "ув",
+            "фа", "хо", "це", "чу", "ша", "ще", "юр", "як", "бре", "вла", "гро", "дру", "зве", "кра", "ля", "мир"
+    };
+    static final String[] ENDINGS = {"", "а", "ы", "ой", "ами", "ов", "ом", "е", "ию", "ью"};
+
+    static final String SQL_LIKE_SCAN = """
+            SELECT film_id
+            FROM films
+            WHERE LOWER(film_name) LIKE ? OR LOWER(description) LIKE ?
+            ORDER BY likes_count DESC, film_id
+            LIMIT 10
+            """;
+
+    @Param("1000000")
+    public int films;
+
+    @Param({"5000", "50000"})
+    public int vocabulary;
+
+    @Param({"word", "prefix"})
+    public String query;
+
+    HikariDataSource dataSource;
+    JdbcTemplate jdbc;
+    FilmSearchIndex searchIndex;
+    String[] words;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:search-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("password");
+        jdbc = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        final Random random = new Random(42);
+        words = new String[vocabulary];
+        for (int i = 0; i < vocabulary; i++) {
+            final StringBuilder word = new StringBuilder();
+            for (int s = 2 + random.nextInt(3); s > 0; s--) {
+                word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            words[i] = word.toString();
+        }
+        seed(random);
+
+        final FilmPopularityIndex popularity = new FilmPopularityIndex(jdbc);
+        popularity.load();
+        searchIndex = new FilmSearchIndex(jdbc, popularity);
+        searchIndex.load();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public long[] invertedIndex() {
+        return searchIndex.search(randomQuery(), 10);
+    }
+
+    @Benchmark
+    public List<Long> likeScan() {
+        final String pattern = "%" + randomQuery() + "%";
+        return jdbc.queryForList(SQL_LIKE_SCAN, Long.class, pattern, pattern);
+    }
+
+    private String randomQuery() {
+        final String word = words[ThreadLocalRandom.current().nextInt(words.length)];
+        return "prefix".equals(query) ? word.substring(0, 4) : word;
+    }
+
+    private void seed(Random random) {
+        final List<Object[]> rows = new ArrayList<>(CHUNK_SIZE);
+        for (long id = 1; id <= films; id++) {
+            rows.add(new Object[]{id, phrase(random, 1 + random.nextInt(3)), phrase(random, 8 + random.nextInt(10)),
+                    Date.valueOf(LocalDate.of(1950 + random.nextInt(70), 1 + random.nextInt(12), 1 + random.nextInt(28))),
+                    60 + random.nextInt(120), 1 + random.nextInt(5), (long) random.nextInt(100)});
+            if (rows.size() == CHUNK_SIZE) {
+                insert(rows);
+            }
+        }
+        insert(rows);
+    }
+
+    private void insert(List<Object[]> rows) {
+        jdbc.batchUpdate("""
+                INSERT INTO films (film_id, film_name, description, release_date, duration, mpa_id, likes_count)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """, rows);
+        rows.clear();
+    }
+
+    private String phrase(Random random, int length) {
+        final StringBuilder phrase = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                phrase.append(' ');
+            }
+            phrase.append(words[random.nextInt(words.length)]).append(ENDINGS[random.nextInt(ENDINGS.length)]);
+        }
+        phrase.setCharAt(0, Character.toUpperCase(phrase.charAt(0)));
+        return phrase.substring(0, Math.min(phrase.length(), 200));
+    }
+}
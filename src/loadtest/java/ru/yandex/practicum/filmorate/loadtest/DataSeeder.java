@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Random;
+
+/**
+ * Fills a fresh instance through the bulk import endpoints. Ids are assigned sequentially from 1,
+ * so traffic generators can address films 1..films and users 1..users.
+ */
+final class DataSeeder {
+
+    private DataSeeder() {
+    }
+
+    static void seed(HttpClient client, URI baseUri, LoadTestOptions options) throws IOException, InterruptedException {
+        final Random random = new Random(42);
+
+        final StringBuilder users = new StringBuilder();
+        for (int i = 1; i <= options.users(); i++) {
+            users.append(String.format("{\"email\":\"user%d@filmorate.ru\",\"login\":\"user%d\",\"name\":\"Пользователь %d\","
+                    + "\"birthday\":\"1990-01-01\"}%n", i, i, i));
+        }
+        post(client, baseUri.resolve("/users/import"), users);
+
+        final StringBuilder films = new StringBuilder();
+        for (int i = 1; i <= options.films(); i++) {
+            films.append(String.format("{\"name\":\"Фильм %d\",\"description\":\"Описание фильма %d\","
+                            + "\"releaseDate\":\"%d-01-01\",\"duration\":%d,\"mpa\":{\"id\":%d},\"genres\":[{\"id\":%d}]}%n",
+                    i, i, 1950 + random.nextInt(70), 60 + random.nextInt(120), 1 + random.nextInt(5), 1 + random.nextInt(6)));
+        }
+        post(client, baseUri.resolve("/films/import"), films);
+
+        final StringBuilder likes = new StringBuilder();
+        final StringBuilder friendships = new StringBuilder();
+        for (int user = 1; user <= options.users(); user++) {
+            for (int i = 0; i < options.likesPerUser(); i++) {
+                likes.append(String.format("{\"filmId\":%d,\"userId\":%d}%n", 1 + random.nextInt(options.films()), user));
+            }
+            for (int i = 0; i < options.friendsPerUser(); i++) {
+                final int friend = 1 + random.nextInt(options.users());
+                if (friend != user) {
+                    friendships.append(String.format("{\"userId\":%d,\"friendId\":%d}%n", user, friend));
+                }
+            }
+        }
+        post(client, baseUri.resolve("/films/likes/import"), likes);
+        post(client, baseUri.resolve("/users/friends/import"), friendships);
+    }
+
+    private static void post(HttpClient client, URI uri, CharSequence ndjson) throws IOException, InterruptedException {
+        final HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Не удалось загрузить данные в " + uri + ": " + response.body());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The application under test, started in-process on a random port with its own H2 database: in memory,
+ * or in a temporary directory that is deleted on close, empty or copied from a {@link SeededDatabase}.
+ */
+final class FilmorateInstance implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final Path databaseDirectory;
+    private final URI baseUri;
+
+    private FilmorateInstance(ConfigurableApplicationContext context, Path databaseDirectory) {
+        this.context = context;
+        this.databaseDirectory = databaseDirectory;
+        final int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        this.baseUri = URI.create("http://localhost:" + port);
+    }
+
+    static FilmorateInstance start(String mode, String profile, LoadTestOptions options, Path snapshot)
+            throws IOException {
+        if ("mem".equals(options.database())) {
+            return start(mode, profile, options, "jdbc:h2:mem:loadtest-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", null);
+        }
+        final Path databaseDirectory = Files.createTempDirectory("filmorate-");
+        if (snapshot != null) {
+            SeededDatabase.copy(snapshot, databaseDirectory);
+        }
+        return start(mode, profile, options, url(databaseDirectory), databaseDirectory);
+    }
+
+    /**
+     * An instance on the file database in {@code directory}, which is kept on close.
+     */
+    static FilmorateInstance startOn(Path directory, String profile, LoadTestOptions options) {
+        return start("platform", profile, options, url(directory), null);
+    }
+
+    private static String url(Path databaseDirectory) {
+        return "jdbc:h2:file:" + databaseDirectory.resolve(SeededDatabase.DATABASE_NAME).toAbsolutePath();
+    }
+
+    private static FilmorateInstance start(String mode, String profile, LoadTestOptions options, String url,
+                                           Path databaseDirectory) {
+        final Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", url);
+        if (!LoadTestOptions.DEFAULT_PROFILE.equals(profile)) {
+            properties.put("spring.profiles.active", profile);
+        }
+        properties.put("spring.threads.virtual.enabled", String.valueOf("virtual".equals(mode)));
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.org.zalando.logbook", "WARN");
+        properties.putAll(options.appProperties());
+
+        final List<String> args = new ArrayList<>();
+        properties.forEach((name, value) -> args.add("--" + name + "=" + value));
+        return new FilmorateInstance(SpringApplication.run(FilmorateApplication.class, args.toArray(String[]::new)),
+                databaseDirectory);
+    }
+
+    URI baseUri() {
+        return baseUri;
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        if (databaseDirectory != null) {
+            SeededDatabase.delete(databaseDirectory);
+        }
+    }
+}
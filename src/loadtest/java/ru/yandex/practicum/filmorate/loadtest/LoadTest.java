@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Starts the application once per execution mode (platform or virtual threads), seeds it and replays
+ * the same traffic against each instance, then prints a latency and throughput table per endpoint.
+ * With {@code --baseline} the run exits with code 1 if it is slower than the saved results.
+ * When several Spring profiles are compared, every profile runs in its own JVM, so that code compiled
+ * by the JIT during earlier runs does not favour the profiles measured later.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        final LoadTestOptions options = LoadTestOptions.parse(args);
+        if (options.profiles().size() > 1) {
+            for (String profile : options.profiles()) {
+                fork(args, profile);
+            }
+            System.exit(0);
+        }
+
+        final String profile = options.profiles().getFirst();
+        final HttpClient client = LoadTestRunner.newClient();
+        final TrafficMix mix = TrafficMix.of(options);
+        final Path snapshot = "seeded".equals(options.database()) ? SeededDatabase.prepare(client, options) : null;
+        final List<LoadTestReport> reports = new ArrayList<>();
+        for (String mode : options.modes()) {
+            try (FilmorateInstance instance = FilmorateInstance.start(mode, profile, options, snapshot)) {
+                if (snapshot == null) {
+                    DataSeeder.seed(client, instance.baseUri(), options);
+                }
+                final String label = LoadTestOptions.DEFAULT_PROFILE.equals(profile) ? mode : mode + "/" + profile;
+                reports.add(new LoadTestRunner(client).run(label, instance.baseUri(), mix, options));
+            }
+        }
+        LoadTestReport.print(reports, System.out);
+        if (options.save() != null) {
+            LoadTestReport.save(reports, options.save());
+        }
+        if (options.baseline() != null) {
+            final List<String> regressions = LoadTestReport.compare(reports,
+                    LoadTestReport.load(options.baseline()), options.maxRegression());
+            if (!regressions.isEmpty()) {
+                System.out.println("\nУхудшение относительно " + options.baseline() + " больше "
+                        + options.maxRegression() + "%:");
+                regressions.forEach(regression -> System.out.println("  " + regression));
+                System.exit(1);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void fork(String[] args, String profile) throws Exception {
+        final List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(LoadTest.class.getName());
+        Arrays.stream(args).filter(arg -> !arg.startsWith("--profiles=")).forEach(command::add);
+        command.add("--profiles=" + profile);
+
+        final int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("Нагрузочный тест профиля " + profile + " завершился с кодом " + exitCode);
+        }
+    }
+}
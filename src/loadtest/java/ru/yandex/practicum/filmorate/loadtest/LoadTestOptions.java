@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options in {@code --name=value} form. Options starting with {@code --app.} are passed to the
+ * application under test without the prefix, e.g. {@code --app.spring.datasource.hikari.maximum-pool-size=20}.
+ * {@code --profiles} lists the Spring profiles to compare, {@code default} meaning none; {@code --database}
+ * is {@code mem}, {@code file} (a temporary file) or {@code seeded} (a copy of a file database seeded once
+ * and kept in {@code --snapshot-dir}); {@code --mix} is a preset of {@link TrafficMix} or a list of weighted
+ * endpoints. {@code --save} writes the results to a file, {@code --baseline} compares them with a saved file
+ * and fails the run on a regression larger than {@code --max-regression} percent.
+ */
+record LoadTestOptions(List<String> modes,
+                       List<String> profiles,
+                       String database,
+                       Path snapshotDir,
+                       String mix,
+                       int clients,
+                       Duration warmup,
+                       Duration duration,
+                       int films,
+                       int users,
+                       int likesPerUser,
+                       int friendsPerUser,
+                       int hotFilms,
+                       Path save,
+                       Path baseline,
+                       double maxRegression,
+                       Map<String, String> appProperties) {
+
+    static final String APP_PREFIX = "app.";
+    static final String DEFAULT_PROFILE = "default";
+    static final List<String> DATABASES = List.of("mem", "file", "seeded");
+
+    static LoadTestOptions parse(String[] args) {
+        final Map<String, String> values = new LinkedHashMap<>();
+        final Map<String, String> appProperties = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Ожидается аргумент вида --name=value: " + arg);
+            }
+            final String name = arg.substring(2, arg.indexOf('='));
+            final String value = arg.substring(arg.indexOf('=') + 1);
+            if (name.startsWith(APP_PREFIX)) {
+                appProperties.put(name.substring(APP_PREFIX.length()), value);
+            } else {
+                values.put(name, value);
+            }
+        }
+        final String database = values.getOrDefault("database", "mem");
+        if (!DATABASES.contains(database)) {
+            throw new IllegalArgumentException("Неизвестный вид базы данных: " + database + ", ожидается один из " + DATABASES);
+        }
+        return new LoadTestOptions(
+                Arrays.asList(values.getOrDefault("modes", "platform,virtual").split(",")),
+                Arrays.asList(values.getOrDefault("profiles", DEFAULT_PROFILE).split(",")),
+                database,
+                Path.of(values.getOrDefault("snapshot-dir", "target/loadtest-db")),
+                values.getOrDefault("mix", "read"),
+                Integer.parseInt(values.getOrDefault("clients", "1000")),
+                Duration.parse("PT" + values.getOrDefault("warmup", "10s")),
+                Duration.parse("PT" + values.getOrDefault("duration", "30s")),
+                Integer.parseInt(values.getOrDefault("films", "5000")),
+                Integer.parseInt(values.getOrDefault("users", "5000")),
+                Integer.parseInt(values.getOrDefault("likes-per-user", "10")),
+                Integer.parseInt(values.getOrDefault("friends-per-user", "10")),
+                Integer.parseInt(values.getOrDefault("hot-films", "10")),
+                values.containsKey("save") ? Path.of(values.get("save")) : null,
+                values.containsKey("baseline") ? Path.of(values.get("baseline")) : null,
+                Double.parseDouble(values.getOrDefault("max-regression", "20")),
+                appProperties);
+    }
+}
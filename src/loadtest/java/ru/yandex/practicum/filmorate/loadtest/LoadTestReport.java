@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+record LoadTestReport(String label, Duration duration, Map<String, EndpointStats> stats) {
+
+    static final String TOTAL = "total";
+    static final String CSV_HEADER = "run;endpoint;requests;req/s;p50 ms;p99 ms;p99.9 ms;errors";
+    static final double MAX_ERROR_RATE_INCREASE = 0.01;
+
+    /**
+     * One line of the report; the {@link #TOTAL} line of a run has throughput and errors only.
+     */
+    record Result(String run, String endpoint, long requests, double throughput,
+                  double p50, double p99, double p999, long errors) {
+
+        String key() {
+            return run + " " + endpoint;
+        }
+
+        String toCsv() {
+            return String.format(Locale.ROOT, "%s;%s;%d;%.1f;%.2f;%.2f;%.2f;%d",
+                    run, endpoint, requests, throughput, p50, p99, p999, errors);
+        }
+
+        static Result fromCsv(String line) {
+            final String[] values = line.split(";");
+            return new Result(values[0], values[1], Long.parseLong(values[2]), Double.parseDouble(values[3]),
+                    Double.parseDouble(values[4]), Double.parseDouble(values[5]), Double.parseDouble(values[6]),
+                    Long.parseLong(values[7]));
+        }
+    }
+
+    List<Result> results() {
+        final double seconds = duration.toMillis() / 1000.0;
+        final List<Result> results = new ArrayList<>();
+        long total = 0;
+        long errors = 0;
+        for (Map.Entry<String, EndpointStats> entry : stats.entrySet()) {
+            final EndpointStats endpoint = entry.getValue();
+            total += endpoint.count();
+            errors += endpoint.errors();
+            results.add(new Result(label, entry.getKey(), endpoint.count(), endpoint.count() / seconds,
+                    endpoint.percentileMillis(50), endpoint.percentileMillis(99), endpoint.percentileMillis(99.9),
+                    endpoint.errors()));
+        }
+        results.add(new Result(label, TOTAL, total, total / seconds, 0, 0, 0, errors));
+        return results;
+    }
+
+    static void print(List<LoadTestReport> reports, PrintStream out) {
+        out.printf("%n%-24s %-34s %10s %10s %9s %9s %9s %9s %8s%n",
+                "run", "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors");
+        for (LoadTestReport report : reports) {
+            final double seconds = report.duration().toMillis() / 1000.0;
+            long total = 0;
+            for (Map.Entry<String, EndpointStats> entry : report.stats().entrySet()) {
+                final EndpointStats stats = entry.getValue();
+                total += stats.count();
+                out.printf("%-24s %-34s %10d %10.1f %9.2f %9.2f %9.2f %9.2f %8d%n",
+                        report.label(), entry.getKey(), stats.count(), stats.count() / seconds,
+                        stats.percentileMillis(50), stats.percentileMillis(99), stats.percentileMillis(99.9),
+                        stats.maxMillis(), stats.errors());
+            }
+            out.printf("%-24s %-34s %10d %10.1f%n", report.label(), TOTAL, total, total / seconds);
+        }
+    }
+
+    /**
+     * Adds the results to {@code file}, replacing earlier results of the same runs, so that the runs of
+     * forked profiles end up in one file.
+     */
+    static void save(List<LoadTestReport> reports, Path file) throws IOException {
+        final Map<String, Result> results = load(file);
+        for (LoadTestReport report : reports) {
+            results.values().removeIf(result -> result.run().equals(report.label()));
+            report.results().forEach(result -> results.put(result.key(), result));
+        }
+        final List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        results.values().forEach(result -> lines.add(result.toCsv()));
+        if (file.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+        }
+        Files.write(file, lines);
+    }
+
+    static Map<String, Result> load(Path file) throws IOException {
+        final Map<String, Result> results = new LinkedHashMap<>();
+        if (!Files.exists(file)) {
+            return results;
+        }
+        for (String line : Files.readAllLines(file)) {
+            if (!line.isBlank() && !line.equals(CSV_HEADER)) {
+                final Result result = Result.fromCsv(line);
+                results.put(result.key(), result);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Regressions against {@code baseline} beyond {@code maxRegression} percent: lower throughput, higher
+     * p99 latency, or a share of errors higher by more than one percentage point. Endpoints missing from
+     * either side are not compared.
+     */
+    static List<String> compare(List<LoadTestReport> reports, Map<String, Result> baseline, double maxRegression) {
+        final double tolerance = maxRegression / 100;
+        final List<String> regressions = new ArrayList<>();
+        for (LoadTestReport report : reports) {
+            for (Result current : report.results()) {
+                final Result before = baseline.get(current.key());
+                if (before == null) {
+                    continue;
+                }
+                if (current.throughput() < before.throughput() * (1 - tolerance)) {
+                    regressions.add(String.format(Locale.ROOT, "%s: пропускная способность %.1f req/s, было %.1f",
+                            current.key(), current.throughput(), before.throughput()));
+                }
+                if (!TOTAL.equals(current.endpoint()) && current.p99() > before.p99() * (1 + tolerance)) {
+                    regressions.add(String.format(Locale.ROOT, "%s: p99 %.2f ms, было %.2f ms",
+                            current.key(), current.p99(), before.p99()));
+                }
+                if (errorRate(current) > errorRate(before) + MAX_ERROR_RATE_INCREASE) {
+                    regressions.add(String.format(Locale.ROOT, "%s: ошибок %d из %d, было %d из %d", current.key(),
+                            current.errors(), current.requests(), before.errors(), before.requests()));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    private static double errorRate(Result result) {
+        return result.requests() == 0 ? 0 : (double) result.errors() / result.requests();
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop load: every client sends the next request as soon as the previous response arrives.
+ */
+final class LoadTestRunner {
+
+    private final HttpClient client;
+
+    LoadTestRunner(HttpClient client) {
+        this.client = client;
+    }
+
+    LoadTestReport run(String label, URI baseUri, TrafficMix mix, LoadTestOptions options) throws InterruptedException {
+        final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        mix.endpoints().forEach(endpoint -> stats.put(endpoint.name(), new EndpointStats()));
+
+        final long warmupEnd = System.nanoTime() + options.warmup().toNanos();
+        final long end = warmupEnd + options.duration().toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.clients(); i++) {
+                clients.submit(() -> {
+                    final Random random = ThreadLocalRandom.current();
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        final TrafficMix.Endpoint endpoint = mix.next(random);
+                        boolean success;
+                        try {
+                            success = client.send(endpoint.request().apply(baseUri, random),
+                                    HttpResponse.BodyHandlers.discarding()).statusCode() < 400;
+                        } catch (Exception e) {
+                            success = false;
+                        }
+                        if (now >= warmupEnd) {
+                            stats.get(endpoint.name()).record(System.nanoTime() - now, success);
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        return new LoadTestReport(label, options.duration(), stats);
+    }
+
+    static HttpClient newClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * H2 file database filled by {@link DataSeeder} once per data set size and kept in {@code --snapshot-dir},
+ * so that every run starts from the same data without replaying the imports. Runs work on a copy;
+ * a snapshot taken before a schema change is migrated by Flyway when the copy starts.
+ */
+final class SeededDatabase {
+
+    static final String DATABASE_NAME = "filmorate";
+
+    private SeededDatabase() {
+    }
+
+    static Path prepare(HttpClient client, LoadTestOptions options) throws IOException, InterruptedException {
+        final Path snapshot = options.snapshotDir().toAbsolutePath().resolve(String.format(
+                "films-%d-users-%d-likes-%d-friends-%d",
+                options.films(), options.users(), options.likesPerUser(), options.friendsPerUser()));
+        if (Files.exists(snapshot.resolve(DATABASE_NAME + ".mv.db"))) {
+            return snapshot;
+        }
+        final Path seeding = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        delete(seeding);
+        Files.createDirectories(seeding);
+        System.out.println("Наполнение базы для нагрузочного теста: " + snapshot);
+        try (FilmorateInstance instance = FilmorateInstance.startOn(seeding, LoadTestOptions.DEFAULT_PROFILE, options)) {
+            DataSeeder.seed(client, instance.baseUri(), options);
+        }
+        delete(snapshot);
+        Files.move(seeding, snapshot, StandardCopyOption.ATOMIC_MOVE);
+        return snapshot;
+    }
+
+    static void copy(Path snapshot, Path target) throws IOException {
+        try (Stream<Path> files = Files.list(snapshot)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, target.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        final List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.sorted(Comparator.reverseOrder()).toList();
+        }
+        for (Path file : files) {
+            Files.delete(file);
+        }
+    }
+}
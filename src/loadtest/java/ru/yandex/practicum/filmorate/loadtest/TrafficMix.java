@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Weighted set of endpoints; each client picks the next request at random according to the weights.
+ * A mix is either a preset or a list of {@code endpoint:weight} pairs, e.g. {@code film:5,like-storm:1},
+ * with endpoints from {@link #endpoint}.
+ */
+final class TrafficMix {
+
+    static final Map<String, String> PRESETS = Map.of(
+            "read", "film:5,popular:3,friends:2",
+            // likes and film updates: every write changes the popularity ranking or a film row, so it also
+            // invalidates the cached responses that the reads in this mix hit
+            "write", "like:4,unlike:2,update-film:1,film:2,popular:1",
+            // mostly reads, with bursts of likes on a few hot films and a trickle of new users and films
+            "realistic", "film:35,popular:20,friends:12,common-friends:6,like:10,like-storm:6,unlike:4,"
+                    + "update-film:3,create-user:2,create-film:2");
+
+    private static final AtomicLong CREATED = new AtomicLong();
+
+    private final List<Endpoint> endpoints;
+    private final int totalWeight;
+
+    TrafficMix(List<Endpoint> endpoints) {
+        this.endpoints = endpoints;
+        this.totalWeight = endpoints.stream().mapToInt(Endpoint::weight).sum();
+    }
+
+    static TrafficMix of(LoadTestOptions options) {
+        final List<Endpoint> endpoints = new ArrayList<>();
+        for (String entry : PRESETS.getOrDefault(options.mix(), options.mix()).split(",")) {
+            final String[] endpointAndWeight = entry.trim().split(":");
+            if (endpointAndWeight.length != 2) {
+                throw new IllegalArgumentException("Неизвестный набор запросов: " + options.mix()
+                        + ", ожидается один из " + PRESETS.keySet() + " или список вида film:5,popular:3");
+            }
+            endpoints.add(endpoint(endpointAndWeight[0], Integer.parseInt(endpointAndWeight[1]), options));
+        }
+        return new TrafficMix(endpoints);
+    }
+
+    static Endpoint endpoint(String name, int weight, LoadTestOptions options) {
+        return switch (name) {
+            case "film" -> new Endpoint("GET /films/{id}", weight, (base, random) -> get(base, "/films/" + film(random, options)));
+            case "popular" -> new Endpoint("GET /films/popular", weight, (base, random) -> get(base, "/films/popular?count=10"));
+            case "friends" -> new Endpoint("GET /users/{id}/friends", weight, (base, random) ->
+                    get(base, "/users/" + user(random, options) + "/friends"));
+            case "common-friends" -> new Endpoint("GET /users/{id}/friends/common", weight, (base, random) -> {
+                final int userId = user(random, options);
+                return get(base, "/users/" + userId + "/friends/common/" + (userId % options.users() + 1));
+            });
+            case "like" -> new Endpoint("PUT /films/{id}/like/{userId}", weight, (base, random) ->
+                    like(base, film(random, options), user(random, options), "PUT"));
+            case "unlike" -> new Endpoint("DELETE /films/{id}/like/{userId}", weight, (base, random) ->
+                    like(base, film(random, options), user(random, options), "DELETE"));
+            case "like-storm" -> new Endpoint("PUT /films/{hot}/like/{userId}", weight, (base, random) ->
+                    like(base, 1 + random.nextInt(Math.min(options.hotFilms(), options.films())), user(random, options), "PUT"));
+            case "update-film" -> new Endpoint("PUT /films", weight, (base, random) -> updateFilm(base, random, options));
+            case "create-film" -> new Endpoint("POST /films", weight, TrafficMix::createFilm);
+            case "create-user" -> new Endpoint("POST /users", weight, TrafficMix::createUser);
+            default -> throw new IllegalArgumentException("Неизвестный эндпоинт нагрузочного теста: " + name);
+        };
+    }
+
+    List<Endpoint> endpoints() {
+        return endpoints;
+    }
+
+    Endpoint next(Random random) {
+        int point = random.nextInt(totalWeight);
+        for (Endpoint endpoint : endpoints) {
+            point -= endpoint.weight();
+            if (point < 0) {
+                return endpoint;
+            }
+        }
+        return endpoints.getLast();
+    }
+
+    static HttpRequest get(URI base, String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).GET().build();
+    }
+
+    static HttpRequest like(URI base, int filmId, int userId, String method) {
+        final String path = "/films/" + filmId + "/like/" + userId;
+        return HttpRequest.newBuilder(base.resolve(path)).method(method, HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    static HttpRequest updateFilm(URI base, Random random, LoadTestOptions options) {
+        final int id = film(random, options);
+        final String body = String.format("{\"id\":%d,\"name\":\"Фильм %d\",\"description\":\"Описание фильма %d, версия %d\","
+                + "\"releaseDate\":\"%d-01-01\",\"duration\":%d,\"mpa\":{\"id\":%d}}",
+                id, id, id, random.nextInt(1000), 1950 + random.nextInt(70), 60 + random.nextInt(120), 1 + random.nextInt(5));
+        return json(base, "/films", "PUT", body);
+    }
+
+    static HttpRequest createFilm(URI base, Random random) {
+        final long n = CREATED.incrementAndGet();
+        final String body = String.format("{\"name\":\"Новый фильм %d\",\"description\":\"Описание нового фильма %d\","
+                + "\"releaseDate\":\"%d-01-01\",\"duration\":%d,\"mpa\":{\"id\":%d},\"genres\":[{\"id\":%d}]}",
+                n, n, 1950 + random.nextInt(70), 60 + random.nextInt(120), 1 + random.nextInt(5), 1 + random.nextInt(6));
+        return json(base, "/films", "POST", body);
+    }
+
+    static HttpRequest createUser(URI base, Random random) {
+        final long n = CREATED.incrementAndGet();
+        final String body = String.format("{\"email\":\"new%d@filmorate.ru\",\"login\":\"new%d\",\"name\":\"Новый %d\","
+                + "\"birthday\":\"1990-01-01\"}", n, n, n);
+        return json(base, "/users", "POST", body);
+    }
+
+    private static HttpRequest json(URI base, String path, String method, String body) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static int film(Random random, LoadTestOptions options) {
+        return 1 + random.nextInt(options.films());
+    }
+
+    private static int user(Random random, LoadTestOptions options) {
+        return 1 + random.nextInt(options.users());
+    }
+
+    record Endpoint(String name, int weight, BiFunction<URI, Random, HttpRequest> request) {
+    }
+}
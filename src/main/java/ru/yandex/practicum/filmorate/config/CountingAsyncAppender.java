@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.config;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link AsyncAppender} that counts the events it does not deliver: INFO and below once the queue is
+ * filled past the discarding threshold, and any event when the queue is full and {@code neverBlock} is set.
+ * Logback creates appenders before the application context, so the counters are static.
+ */
+public class CountingAsyncAppender extends AsyncAppender {
+
+    private static final LongAdder DISCARDED = new LongAdder();
+    private static final LongAdder QUEUE_FULL = new LongAdder();
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        final int remaining = getRemainingCapacity();
+        if (remaining < getDiscardingThreshold() && isDiscardable(event)) {
+            DISCARDED.increment();
+            return;
+        }
+        if (remaining == 0 && isNeverBlock()) {
+            QUEUE_FULL.increment();
+            return;
+        }
+        super.append(event);
+    }
+
+    public static long getDiscardedCount() {
+        return DISCARDED.sum();
+    }
+
+    public static long getQueueFullCount() {
+        return QUEUE_FULL.sum();
+    }
+}
@@ -0,0 +1,159 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Appends the H2 engine settings from {@code filmorate.h2} to the JDBC URL of the Hikari pool and checks
+ * them together with the pool settings before the first connection is opened. The performance profiles
+ * ({@code read-heavy}, {@code write-heavy}, {@code low-memory}) set both; at most one of them may be active.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(DatabaseTuningConfig.H2TuningProperties.class)
+public class DatabaseTuningConfig {
+
+    static final List<String> PERFORMANCE_PROFILES = List.of("read-heavy", "write-heavy", "low-memory");
+    static final double MAX_CACHE_HEAP_SHARE = 0.5;
+
+    @Bean
+    public static BeanPostProcessor h2Tuning(ObjectProvider<H2TuningProperties> properties,
+                                             ObjectProvider<ResponseCacheConfig.ResponseCacheProperties> responseCache,
+                                             Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource dataSource) || dataSource.getJdbcUrl() == null
+                        || !dataSource.getJdbcUrl().startsWith("jdbc:h2:")) {
+                    return bean;
+                }
+                final H2TuningProperties config = properties.getObject();
+                final ResponseCacheConfig.ResponseCacheProperties cache = responseCache.getIfAvailable();
+                validate(environment.getActiveProfiles(), dataSource, config,
+                        cache == null ? DataSize.ofBytes(0) : cache.getMaximumSize(), Runtime.getRuntime().maxMemory());
+                final Map<String, Object> appended = appendedSettings(dataSource.getJdbcUrl(), config.toSettings());
+                dataSource.setJdbcUrl(withSettings(dataSource.getJdbcUrl(), appended));
+                // the URL may carry credentials or file paths, so only the added settings are logged by default
+                log.debug("Подключение к базе данных: {}", dataSource.getJdbcUrl());
+                log.info("Настройки H2: {}, пул до {} подключений", appended,
+                        dataSource.getMaximumPoolSize() > 0
+                                ? dataSource.getMaximumPoolSize()
+                                : JdbcConcurrencyConfig.HIKARI_DEFAULT_POOL_SIZE);
+                return bean;
+            }
+        };
+    }
+
+    static void validate(String[] activeProfiles, HikariDataSource dataSource, H2TuningProperties config,
+                         DataSize responseCacheSize, long maxHeap) {
+        final List<String> performanceProfiles = Arrays.stream(activeProfiles)
+                .filter(PERFORMANCE_PROFILES::contains)
+                .toList();
+        if (performanceProfiles.size() > 1) {
+            throw new IllegalStateException("Одновременно может быть активен только один профиль производительности: "
+                    + String.join(", ", performanceProfiles));
+        }
+        if (dataSource.getMaximumPoolSize() > 0 && dataSource.getMinimumIdle() > dataSource.getMaximumPoolSize()) {
+            throw new IllegalStateException("spring.datasource.hikari.minimum-idle (" + dataSource.getMinimumIdle()
+                    + ") не может превышать maximum-pool-size (" + dataSource.getMaximumPoolSize() + ")");
+        }
+        if (config.getCacheSize() != null && config.getCacheSize().toKilobytes() < 1) {
+            throw new IllegalStateException("filmorate.h2.cache-size должен быть не меньше 1KB");
+        }
+        if (config.getQueryCacheSize() != null && config.getQueryCacheSize() < 0) {
+            throw new IllegalStateException("filmorate.h2.query-cache-size не может быть отрицательным");
+        }
+        if (config.getWriteDelay() != null && config.getWriteDelay().isNegative()) {
+            throw new IllegalStateException("filmorate.h2.write-delay не может быть отрицательным");
+        }
+        if (config.getAutoCompactFillRate() != null
+                && (config.getAutoCompactFillRate() < 0 || config.getAutoCompactFillRate() > 100)) {
+            throw new IllegalStateException("filmorate.h2.auto-compact-fill-rate должен быть от 0 до 100");
+        }
+        final long caches = responseCacheSize.toBytes()
+                + (config.getCacheSize() == null ? 0 : config.getCacheSize().toBytes());
+        if (caches > maxHeap * MAX_CACHE_HEAP_SHARE) {
+            throw new IllegalStateException(String.format("Кэш H2 и кэш ответов (%dMB) занимают больше половины "
+                    + "памяти JVM (%dMB)", caches / DataSize.ofMegabytes(1).toBytes(),
+                    maxHeap / DataSize.ofMegabytes(1).toBytes()));
+        }
+    }
+
+    /**
+     * Adds the settings to the URL; settings already present in the URL take precedence.
+     */
+    static String withSettings(String url, Map<String, Object> settings) {
+        final StringBuilder result = new StringBuilder(url);
+        appendedSettings(url, settings).forEach((name, value) ->
+                result.append(';').append(name).append('=').append(value));
+        return result.toString();
+    }
+
+    /**
+     * The settings that {@link #withSettings} would add, i.e. those not already present in the URL.
+     */
+    static Map<String, Object> appendedSettings(String url, Map<String, Object> settings) {
+        final String upperCaseUrl = url.toUpperCase(Locale.ROOT);
+        final Map<String, Object> appended = new LinkedHashMap<>();
+        settings.forEach((name, value) -> {
+            if (!upperCaseUrl.contains(";" + name + "=")) {
+                appended.put(name, value);
+            }
+        });
+        return appended;
+    }
+
+    /**
+     * H2 engine settings; unset values keep the H2 defaults.
+     */
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    @ConfigurationProperties("filmorate.h2")
+    public static class H2TuningProperties {
+        // page cache of the database, shared by all connections
+        DataSize cacheSize;
+        // parsed statements kept per connection, so that repeated prepareStatement calls skip the parser
+        Integer queryCacheSize;
+        // how long committed changes may stay in memory before they are written to the file
+        Duration writeDelay;
+        // MVStore rewrites chunks that are less full than this percentage; 0 disables background compaction
+        Integer autoCompactFillRate;
+
+        Map<String, Object> toSettings() {
+            final Map<String, Object> settings = new LinkedHashMap<>();
+            if (cacheSize != null) {
+                settings.put("CACHE_SIZE", cacheSize.toKilobytes());
+            }
+            if (queryCacheSize != null) {
+                settings.put("QUERY_CACHE_SIZE", queryCacheSize);
+            }
+            if (writeDelay != null) {
+                settings.put("WRITE_DELAY", writeDelay.toMillis());
+            }
+            if (autoCompactFillRate != null) {
+                settings.put("AUTO_COMPACT_FILL_RATE", autoCompactFillRate);
+            }
+            return settings;
+        }
+    }
+}
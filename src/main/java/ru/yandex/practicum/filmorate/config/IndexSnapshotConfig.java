@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.dal.index.IndexSnapshotProperties;
+
+/**
+ * With {@code filmorate.index-snapshot.enabled=true} the like matrix, the friendship graph and the catalog
+ * indexes are loaded from a snapshot file plus the journal of later changes instead of the full tables.
+ */
+@Configuration
+@EnableConfigurationProperties(IndexSnapshotProperties.class)
+public class IndexSnapshotConfig {
+}
@@ -0,0 +1,106 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Active when request handling runs on virtual threads ({@code spring.threads.virtual.enabled=true}).
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@EnableConfigurationProperties(JdbcConcurrencyConfig.JdbcConcurrencyProperties.class)
+public class JdbcConcurrencyConfig {
+
+    static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public static ConcurrencyLimiterPostProcessor jdbcConcurrencyLimiter(
+            ObjectProvider<JdbcConcurrencyProperties> properties,
+            ObjectProvider<MeterRegistry> registry) {
+        return new ConcurrencyLimiterPostProcessor(properties, registry);
+    }
+
+    /**
+     * Runs before any other data source post-processor, so the limiter sits right on top of the pool and
+     * wrappers such as the replica routing proxy are built around the limited data source, not wrapped again.
+     */
+    @RequiredArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    static class ConcurrencyLimiterPostProcessor implements BeanPostProcessor, Ordered {
+
+        static final int ORDER = Ordered.HIGHEST_PRECEDENCE;
+
+        ObjectProvider<JdbcConcurrencyProperties> properties;
+        ObjectProvider<MeterRegistry> registry;
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)
+                    || bean instanceof ConcurrencyLimitingDataSource
+                    || bean instanceof LazyConnectionDataSourceProxy
+                    || bean instanceof ReplicaRoutingDataSource) {
+                return bean;
+            }
+            final JdbcConcurrencyProperties config = properties.getObject();
+            final int permits = config.getPermits() != null ? config.getPermits() : poolSize(dataSource);
+            final ConcurrencyLimitingDataSource limited =
+                    new ConcurrencyLimitingDataSource(dataSource, permits, config.getAcquireTimeout());
+            registry.ifAvailable(meters -> {
+                Gauge.builder("filmorate.jdbc.permits.available", limited,
+                        ConcurrencyLimitingDataSource::getAvailablePermits).register(meters);
+                Gauge.builder("filmorate.jdbc.permits.waiting", limited,
+                        ConcurrencyLimitingDataSource::getQueueLength).register(meters);
+            });
+            log.info("Доступ к базе данных ограничен {} одновременными подключениями", permits);
+            return limited;
+        }
+
+        @Override
+        public int getOrder() {
+            return ORDER;
+        }
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                final int size = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+                return size > 0 ? size : HIKARI_DEFAULT_POOL_SIZE;
+            }
+        } catch (SQLException e) {
+            log.warn("Не удалось определить размер пула подключений", e);
+        }
+        return Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    @ConfigurationProperties("filmorate.jdbc.concurrency")
+    public static class JdbcConcurrencyProperties {
+        Integer permits;
+        Duration acquireTimeout = Duration.ofSeconds(60);
+    }
+}
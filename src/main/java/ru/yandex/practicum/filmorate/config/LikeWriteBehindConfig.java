@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindQueue;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.time.Duration;
+
+/**
+ * Active with {@code filmorate.likes.write-behind.enabled=true}; otherwise likes are written synchronously.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "filmorate.likes.write-behind", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(LikeWriteBehindConfig.LikeWriteBehindProperties.class)
+public class LikeWriteBehindConfig {
+
+    @Bean(destroyMethod = "close")
+    public LikeWriteBehindQueue likeWriteBehindQueue(FilmStorage filmStorage, LikeWriteBehindProperties properties,
+                                                     MeterRegistry registry) {
+        return new LikeWriteBehindQueue(filmStorage, properties.getCapacity(), properties.getBatchSize(),
+                properties.getFlushInterval(), properties.getOfferTimeout(), registry);
+    }
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    @ConfigurationProperties("filmorate.likes.write-behind")
+    public static class LikeWriteBehindProperties {
+        boolean enabled;
+        int capacity = 100_000;
+        int batchSize = 1000;
+        Duration flushInterval = Duration.ofMillis(200);
+        Duration offerTimeout = Duration.ofSeconds(1);
+    }
+}
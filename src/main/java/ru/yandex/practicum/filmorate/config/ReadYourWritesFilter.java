@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Read-your-writes window of a client. After a request writes to the primary, its remaining reads and the reads
+ * of the client's requests within {@code window} go to the primary as well, so that a client never reads from
+ * a replica that has not caught up with its own changes. The end of the window travels in a cookie.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "filmorate-primary-until";
+
+    private static final ThreadLocal<RequestWindow> CURRENT = new ThreadLocal<>();
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        CURRENT.set(new RequestWindow(response, primaryUntil(request)));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    static boolean isPrimaryRequired() {
+        final RequestWindow current = CURRENT.get();
+        return current != null && System.currentTimeMillis() < current.primaryUntil;
+    }
+
+    static void written(Duration window) {
+        final RequestWindow current = CURRENT.get();
+        if (current == null) {
+            return;
+        }
+        current.primaryUntil = System.currentTimeMillis() + window.toMillis();
+        if (!current.cookieSent && !current.response.isCommitted()) {
+            final Cookie cookie = new Cookie(COOKIE_NAME, String.valueOf(current.primaryUntil));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+            current.response.addCookie(cookie);
+            current.cookieSent = true;
+        }
+    }
+
+    /**
+     * End of the window from the client's cookie; a value further away than the window itself is not trusted.
+     */
+    private long primaryUntil(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return 0;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Math.min(Long.parseLong(cookie.getValue()), System.currentTimeMillis() + window.toMillis());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static final class RequestWindow {
+        final HttpServletResponse response;
+        long primaryUntil;
+        boolean cookieSent;
+
+        RequestWindow(HttpServletResponse response, long primaryUntil) {
+            this.response = response;
+            this.primaryUntil = primaryUntil;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.dal.index.RecommendationProperties;
+
+@Configuration
+@EnableConfigurationProperties(RecommendationProperties.class)
+public class RecommendationConfig {
+}
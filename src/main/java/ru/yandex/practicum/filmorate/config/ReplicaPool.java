@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Connection pools of the read replicas. Replicas are taken in turn; a replica that cannot be connected to
+ * or does not pass the periodic health check is skipped until a later check succeeds. A replica whose pool
+ * is merely exhausted stays in rotation: the read moves on to the next replica or the primary.
+ */
+@Slf4j
+public class ReplicaPool implements AutoCloseable {
+
+    static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder failovers = new LongAdder();
+    private final ScheduledExecutorService healthChecker;
+
+    public ReplicaPool(List<HikariDataSource> dataSources, Duration healthCheckInterval) {
+        this(dataSources, healthCheckInterval, UnaryOperator.identity());
+    }
+
+    /**
+     * @param limiter wraps the pool of every replica before reads take connections from it, e.g. to put it
+     *                under a {@link ConcurrencyLimitingDataSource}; the health check uses the pools directly
+     */
+    public ReplicaPool(List<HikariDataSource> dataSources, Duration healthCheckInterval,
+                       UnaryOperator<DataSource> limiter) {
+        this.replicas = dataSources.stream()
+                .map(dataSource -> new Replica(dataSource, limiter.apply(dataSource)))
+                .toList();
+        checkHealth();
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("replica-health-check").daemon().factory());
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, healthCheckInterval.toMillis(),
+                healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A connection to the next healthy replica, or {@code null} if no replica is available.
+     */
+    public Connection getConnection() {
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            final Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.connections.getConnection();
+            } catch (SQLException e) {
+                if (isUnreachable(e)) {
+                    markDown(replica, e);
+                } else {
+                    log.debug("Нет свободных подключений к реплике {}", replica.dataSource.getPoolName());
+                }
+                failovers.increment();
+            }
+        }
+        return null;
+    }
+
+    public int getHealthyCount() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    public long getFailoverCount() {
+        return failovers.sum();
+    }
+
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    if (!replica.healthy) {
+                        log.info("Реплика {} снова доступна", replica.dataSource.getPoolName());
+                    }
+                    replica.healthy = true;
+                } else {
+                    markDown(replica, null);
+                }
+            } catch (SQLException e) {
+                if (isUnreachable(e)) {
+                    markDown(replica, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the replica could not be connected to, as opposed to a timeout waiting for a free connection
+     * of a busy pool. Hikari reports both as {@link SQLTransientConnectionException}, but only attaches
+     * a cause when the last attempt to open a connection failed.
+     */
+    static boolean isUnreachable(SQLException e) {
+        return !(e instanceof SQLTransientConnectionException) || e.getCause() instanceof SQLException;
+    }
+
+    private static void markDown(Replica replica, SQLException cause) {
+        if (replica.healthy) {
+            log.warn("Реплика {} недоступна, чтение переключено на остальные реплики или основную базу",
+                    replica.dataSource.getPoolName(), cause);
+        }
+        replica.healthy = false;
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private static final class Replica {
+        final HikariDataSource dataSource;
+        final DataSource connections;
+        volatile boolean healthy = true;
+
+        Replica(HikariDataSource dataSource, DataSource connections) {
+            this.dataSource = dataSource;
+            this.connections = connections;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Active with {@code filmorate.jdbc.routing.enabled=true}: read-only transactions are served by the replicas
+ * listed in {@code filmorate.jdbc.routing.replicas}, everything else by {@code spring.datasource}.
+ * On virtual threads every replica pool gets its own {@link ConcurrencyLimitingDataSource} with as many
+ * permits as the pool has connections, next to the limiter of the primary. A replica read waits for a permit
+ * no longer than for a pool connection ({@code connection-timeout}) and then fails over to the next replica
+ * or the primary.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "filmorate.jdbc.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaRoutingConfig.ReplicaRoutingProperties.class)
+public class ReplicaRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReplicaPool replicaPool(ReplicaRoutingProperties properties,
+                                   ObjectProvider<JdbcConcurrencyConfig.JdbcConcurrencyProperties> concurrency,
+                                   ObjectProvider<MeterRegistry> registry) {
+        if (properties.getReplicas().isEmpty()) {
+            throw new IllegalStateException("Маршрутизация чтения на реплики включена, но реплики не заданы: "
+                    + "filmorate.jdbc.routing.replicas");
+        }
+        final List<HikariDataSource> dataSources = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            final ReplicaProperties replica = properties.getReplicas().get(i);
+            final HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + (i + 1));
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setMaximumPoolSize(properties.getMaximumPoolSize());
+            dataSource.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+            dataSource.setReadOnly(true);
+            // an unavailable replica must not prevent startup; the health check takes it out of rotation
+            dataSource.setInitializationFailTimeout(-1);
+            dataSources.add(dataSource);
+        }
+        final JdbcConcurrencyConfig.JdbcConcurrencyProperties limits = concurrency.getIfAvailable();
+        final ReplicaPool pool = new ReplicaPool(dataSources, properties.getHealthCheckInterval(), limits == null
+                ? UnaryOperator.identity()
+                : dataSource -> new ConcurrencyLimitingDataSource(dataSource, properties.getMaximumPoolSize(),
+                        properties.getConnectionTimeout()));
+        registry.ifAvailable(meters -> {
+            Gauge.builder("filmorate.jdbc.replicas.healthy", pool, ReplicaPool::getHealthyCount).register(meters);
+            FunctionCounter.builder("filmorate.jdbc.replicas.failovers", pool, ReplicaPool::getFailoverCount)
+                    .register(meters);
+        });
+        log.info("Реплик для чтения: {}, доступно: {}", dataSources.size(), pool.getHealthyCount());
+        return pool;
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaRoutingProperties properties) {
+        return new ReadYourWritesFilter(properties.getReadYourWritesWindow());
+    }
+
+    @Bean
+    public static ReplicaRoutingPostProcessor replicaRouting(ObjectProvider<ReplicaRoutingProperties> properties,
+                                                             ObjectProvider<ReplicaPool> replicas) {
+        return new ReplicaRoutingPostProcessor(properties, replicas);
+    }
+
+    /**
+     * Runs after the JDBC limiter, so the routing proxy is built around the limited primary.
+     */
+    @RequiredArgsConstructor
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    static class ReplicaRoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        static final int ORDER = JdbcConcurrencyConfig.ConcurrencyLimiterPostProcessor.ORDER + 1;
+
+        ObjectProvider<ReplicaRoutingProperties> properties;
+        ObjectProvider<ReplicaPool> replicas;
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource primary) || bean instanceof LazyConnectionDataSourceProxy) {
+                return bean;
+            }
+            return ReplicaRoutingDataSource.route(primary, replicas.getObject(),
+                    properties.getObject().getReadYourWritesWindow());
+        }
+
+        @Override
+        public int getOrder() {
+            return ORDER;
+        }
+    }
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    @ConfigurationProperties("filmorate.jdbc.routing")
+    public static class ReplicaRoutingProperties {
+        boolean enabled;
+        List<ReplicaProperties> replicas = new ArrayList<>();
+        int maximumPoolSize = 10;
+        Duration connectionTimeout = Duration.ofSeconds(1);
+        Duration healthCheckInterval = Duration.ofSeconds(5);
+        Duration readYourWritesWindow = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class ReplicaProperties {
+        String url;
+        String username;
+        String password;
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Read side of the routing data source: connections of read-only transactions come from a healthy replica,
+ * or from the primary if there is none or if the current request has to read its own writes.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final ReplicaPool replicas;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaPool replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+    }
+
+    /**
+     * Routes connections of {@code @Transactional(readOnly = true)} methods through this data source and all
+     * others to the primary. The physical connection is taken on the first statement, when the transaction
+     * is already marked read-only. Every connection to the primary outside a read-only transaction is
+     * treated as a write and opens the read-your-writes window of the current request.
+     */
+    public static DataSource route(DataSource primary, ReplicaPool replicas, Duration readYourWritesWindow) {
+        final LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        proxy.setTargetDataSource(new DelegatingDataSource(primary) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                ReadYourWritesFilter.written(readYourWritesWindow);
+                return super.getConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                ReadYourWritesFilter.written(readYourWritesWindow);
+                return super.getConnection(username, password);
+            }
+        });
+        proxy.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, replicas));
+        proxy.afterPropertiesSet();
+        return proxy;
+    }
+
+    /**
+     * Runs {@code action} with all its reads on the primary, for results that must not be older than
+     * the in-memory state, such as response bodies cached under the current version tag.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        if (PRIMARY_REQUIRED.get() != null) {
+            return action.get();
+        }
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (PRIMARY_REQUIRED.get() != null || ReadYourWritesFilter.isPrimaryRequired()) {
+            return primary.getConnection();
+        }
+        final Connection replica = replicas.getConnection();
+        return replica != null ? replica : primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // replica pools are opened with their own credentials, so another user can only be served by the primary
+        return primary.getConnection(username, password);
+    }
+}
@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Which requests Logbook writes. Changes are always logged; reads, which make up most of the traffic,
+ * only with {@code filmorate.logging.read-sample-rate}. Streamed NDJSON responses are never buffered for
+ * the log. Path exclusions and the body size cap come from the {@code logbook.*} properties.
+ */
+@Configuration
+@EnableConfigurationProperties(RequestLogConfig.LoggingProperties.class)
+public class RequestLogConfig {
+
+    static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    @Bean
+    public Predicate<HttpRequest> requestCondition(LoggingProperties properties) {
+        final double rate = properties.getReadSampleRate();
+        if (rate < 0 || rate > 1) {
+            throw new IllegalStateException("Доля логируемых запросов на чтение должна быть от 0 до 1: "
+                    + "filmorate.logging.read-sample-rate = " + rate);
+        }
+        return request -> !isStreamed(request)
+                && (!READ_METHODS.contains(request.getMethod()) || ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    @Bean
+    public MeterBinder droppedLogEvents() {
+        return registry -> {
+            FunctionCounter.builder("filmorate.logging.dropped", CountingAsyncAppender.class,
+                            appender -> CountingAsyncAppender.getDiscardedCount())
+                    .tag("reason", "discarded")
+                    .register(registry);
+            FunctionCounter.builder("filmorate.logging.dropped", CountingAsyncAppender.class,
+                            appender -> CountingAsyncAppender.getQueueFullCount())
+                    .tag("reason", "queue-full")
+                    .register(registry);
+        };
+    }
+
+    private static boolean isStreamed(HttpRequest request) {
+        for (String parameter : request.getQuery().split("&")) {
+            if (parameter.equals("stream=true")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The {@code async} settings are read by logback-spring.xml.
+     */
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    @ConfigurationProperties("filmorate.logging")
+    public static class LoggingProperties {
+        double readSampleRate = 0.05;
+        AsyncProperties async = new AsyncProperties();
+    }
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class AsyncProperties {
+        int queueSize = 8192;
+        boolean neverBlock = true;
+    }
+}
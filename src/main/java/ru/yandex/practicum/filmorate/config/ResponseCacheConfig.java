@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.web.cache.JsonResponseCache;
+
+@Configuration
+@EnableConfigurationProperties(ResponseCacheConfig.ResponseCacheProperties.class)
+public class ResponseCacheConfig {
+
+    @Bean
+    public JsonResponseCache jsonResponseCache(ObjectMapper objectMapper, ResponseCacheProperties properties,
+                                               MeterRegistry registry, ObjectProvider<ReplicaPool> replicas) {
+        if (replicas.getIfAvailable() == null) {
+            return new JsonResponseCache(objectMapper, properties.getMaximumSize().toBytes(), registry);
+        }
+        // a replica may lag behind the version tag; a stale body cached under the new tag would outlive the lag
+        return new JsonResponseCache(objectMapper, properties.getMaximumSize().toBytes(), registry,
+                ReplicaRoutingDataSource::onPrimary);
+    }
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    @ConfigurationProperties("filmorate.response-cache")
+    public static class ResponseCacheProperties {
+        DataSize maximumSize = DataSize.ofMegabytes(64);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(TrendingConfig.TrendingProperties.class)
+public class TrendingConfig {
+
+    /**
+     * Time of likes and of the trending windows.
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemUTC();
+    }
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    @ConfigurationProperties("filmorate.trending")
+    public static class TrendingProperties {
+        // windows slide by whole buckets; every window must be a multiple of the bucket
+        Duration bucket = Duration.ofMinutes(5);
+        List<Duration> windows = List.of(Duration.ofHours(1), Duration.ofHours(24), Duration.ofDays(7));
+    }
+}
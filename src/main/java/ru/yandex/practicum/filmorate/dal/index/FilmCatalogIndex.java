@@ -0,0 +1,257 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Inverted indexes of the catalog: for every genre, release year and MPA rating a bitmap of film ids.
+ * Filters are answered by intersecting bitmaps, facets by counting the intersection with every bitmap
+ * of a dimension. Loaded on startup by {@link IndexWarmStart}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FilmCatalogIndex {
+
+    static final String SQL_FIND_ALL_FILMS = """
+            SELECT film_id,
+                   release_date,
+                   mpa_id
+            FROM films
+            """;
+
+    static final String SQL_FIND_ALL_FILM_GENRES = """
+            SELECT film_id,
+                   genre_id
+            FROM film_genres
+            """;
+
+    static final String SQL_FIND_FILM = """
+            SELECT release_date,
+                   mpa_id
+            FROM films
+            WHERE film_id = ?
+            """;
+
+    static final String SQL_FIND_FILM_GENRES = """
+            SELECT genre_id
+            FROM film_genres
+            WHERE film_id = ?
+            """;
+
+    final JdbcTemplate jdbc;
+    final BitSet allFilms = new BitSet();
+    final Map<Integer, BitSet> filmsByGenre = new HashMap<>();
+    final Map<Integer, BitSet> filmsByYear = new HashMap<>();
+    final Map<Integer, BitSet> filmsByMpa = new HashMap<>();
+    final Map<Long, FilmKeys> keysByFilm = new HashMap<>();
+    final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void load() {
+        load(films -> jdbc.query(SQL_FIND_ALL_FILMS, rs -> {
+            final int mpaId = rs.getInt("mpa_id");
+            final boolean withoutMpa = rs.wasNull();
+            films.accept(rs.getLong("film_id"), rs.getDate("release_date").toLocalDate().getYear(),
+                    withoutMpa ? null : mpaId);
+        }), genres -> jdbc.query(SQL_FIND_ALL_FILM_GENRES, rs -> {
+            genres.accept(rs.getLong("film_id"), rs.getLong("genre_id"));
+        }));
+    }
+
+    /**
+     * Replaces the indexes with the films and the (film id, genre id) pairs that the sources pass to
+     * their arguments.
+     */
+    public void load(Consumer<FilmConsumer> films, Consumer<LongPairConsumer> genres) {
+        lock.writeLock().lock();
+        try {
+            allFilms.clear();
+            filmsByGenre.clear();
+            filmsByYear.clear();
+            filmsByMpa.clear();
+            keysByFilm.clear();
+            final Map<Long, BitSet> genresByFilm = new HashMap<>();
+            genres.accept((filmId, genreId) -> {
+                genresByFilm.computeIfAbsent(filmId, id -> new BitSet()).set(Math.toIntExact(genreId));
+            });
+            films.accept((filmId, year, mpaId) -> {
+                put(filmId, new FilmKeys(year, mpaId, genresByFilm.getOrDefault(filmId, new BitSet())));
+            });
+            log.info("Индексы каталога загружены: {} фильмов, {} жанров, {} лет выпуска",
+                    keysByFilm.size(), filmsByGenre.size(), filmsByYear.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-reads the keys of one film, e.g. of a film changed after the snapshot the index was loaded from.
+     */
+    public void reload(Long filmId) {
+        final BitSet genres = new BitSet();
+        jdbc.query(SQL_FIND_FILM_GENRES, rs -> {
+            genres.set(rs.getInt("genre_id"));
+        }, filmId);
+        final List<FilmKeys> keys = jdbc.query(SQL_FIND_FILM, (rs, rowNum) -> {
+            final int mpaId = rs.getInt("mpa_id");
+            final boolean withoutMpa = rs.wasNull();
+            return new FilmKeys(rs.getDate("release_date").toLocalDate().getYear(), withoutMpa ? null : mpaId, genres);
+        }, filmId);
+        replace(filmId, keys.isEmpty() ? null : keys.getFirst());
+    }
+
+    public void filmSaved(Long filmId, LocalDate releaseDate, Integer mpaId, Collection<Integer> genreIds) {
+        final BitSet genres = new BitSet();
+        genreIds.forEach(genres::set);
+        final FilmKeys previous = replace(filmId, new FilmKeys(releaseDate.getYear(), mpaId, genres));
+        TransactionHooks.onRollback(() -> replace(filmId, previous));
+    }
+
+    public boolean contains(Long filmId) {
+        lock.readLock().lock();
+        try {
+            return keysByFilm.containsKey(filmId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the films matching every given condition; {@code null} conditions are ignored.
+     */
+    public BitSet match(Integer genreId, Integer year, Integer mpaId) {
+        lock.readLock().lock();
+        try {
+            final BitSet result = (BitSet) allFilms.clone();
+            retain(result, filmsByGenre, genreId);
+            retain(result, filmsByYear, year);
+            retain(result, filmsByMpa, mpaId);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Facets countFacets(BitSet films) {
+        lock.readLock().lock();
+        try {
+            return new Facets(count(films, filmsByGenre), count(films, filmsByYear), count(films, filmsByMpa));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private FilmKeys replace(long filmId, FilmKeys keys) {
+        lock.writeLock().lock();
+        try {
+            final FilmKeys previous = keysByFilm.remove(filmId);
+            if (previous != null) {
+                final int bit = toBit(filmId);
+                allFilms.clear(bit);
+                previous.genres().stream().forEach(genreId -> clear(filmsByGenre, genreId, bit));
+                clear(filmsByYear, previous.year(), bit);
+                clear(filmsByMpa, previous.mpaId(), bit);
+            }
+            if (keys != null) {
+                put(filmId, keys);
+            }
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(long filmId, FilmKeys keys) {
+        final int bit = toBit(filmId);
+        keysByFilm.put(filmId, keys);
+        allFilms.set(bit);
+        keys.genres().stream().forEach(genreId -> filmsByGenre.computeIfAbsent(genreId, id -> new BitSet()).set(bit));
+        filmsByYear.computeIfAbsent(keys.year(), year -> new BitSet()).set(bit);
+        if (keys.mpaId() != null) {
+            filmsByMpa.computeIfAbsent(keys.mpaId(), id -> new BitSet()).set(bit);
+        }
+    }
+
+    private static void retain(BitSet result, Map<Integer, BitSet> index, Integer key) {
+        if (key == null) {
+            return;
+        }
+        final BitSet films = index.get(key);
+        if (films == null) {
+            result.clear();
+        } else {
+            result.and(films);
+        }
+    }
+
+    private static void clear(Map<Integer, BitSet> index, Integer key, int bit) {
+        final BitSet films = key == null ? null : index.get(key);
+        if (films != null) {
+            films.clear(bit);
+            if (films.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static SortedMap<Integer, Integer> count(BitSet films, Map<Integer, BitSet> index) {
+        final SortedMap<Integer, Integer> counts = new TreeMap<>();
+        final int total = films.cardinality();
+        index.forEach((key, indexed) -> {
+            final int count = total <= indexed.cardinality()
+                    ? intersectionSize(films, indexed)
+                    : intersectionSize(indexed, films);
+            if (count > 0) {
+                counts.put(key, count);
+            }
+        });
+        return counts;
+    }
+
+    private static int intersectionSize(BitSet iterated, BitSet probed) {
+        int count = 0;
+        for (int bit = iterated.nextSetBit(0); bit >= 0; bit = iterated.nextSetBit(bit + 1)) {
+            if (probed.get(bit)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int toBit(long filmId) {
+        return Math.toIntExact(filmId);
+    }
+
+    /**
+     * Number of films per genre id, release year and MPA rating id; keys without films are omitted.
+     */
+    public record Facets(SortedMap<Integer, Integer> genres,
+                         SortedMap<Integer, Integer> years,
+                         SortedMap<Integer, Integer> mpa) {
+    }
+
+    @FunctionalInterface
+    public interface FilmConsumer {
+        void accept(long filmId, int year, Integer mpaId);
+    }
+
+    private record FilmKeys(int year, Integer mpaId, BitSet genres) {
+    }
+}
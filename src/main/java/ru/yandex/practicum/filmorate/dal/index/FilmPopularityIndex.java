@@ -0,0 +1,189 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.LongStream;
+
+/**
+ * Like counters per film plus a ranking ordered by likes (desc) and film id (asc).
+ * Films without likes are not ranked. Counters live in a primitive array indexed by film id, so bulk
+ * lookups (search, filtered top) do not chase boxed hash map entries. Warmed from the denormalized
+ * films.likes_count column.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FilmPopularityIndex {
+
+    static final String SQL_COUNT_LIKES_BY_FILM = """
+            SELECT film_id,
+                   likes_count AS likes
+            FROM films
+            WHERE likes_count > 0
+            """;
+
+    static final Comparator<FilmScore> RANKING_ORDER = Comparator.comparingLong(FilmScore::likes).reversed()
+            .thenComparingLong(FilmScore::filmId);
+
+    final JdbcTemplate jdbc;
+    long[] likesByFilm = new long[0];
+    final NavigableSet<FilmScore> ranking = new TreeSet<>(RANKING_ORDER);
+    final BitSet ranked = new BitSet();
+    final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            likesByFilm = new long[0];
+            ranking.clear();
+            ranked.clear();
+            jdbc.query(SQL_COUNT_LIKES_BY_FILM, rs -> {
+                put(rs.getLong("film_id"), rs.getLong("likes"));
+            });
+            log.info("Рейтинг популярности загружен: {} фильмов с лайками", ranked.cardinality());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void likeAdded(Long filmId) {
+        change(filmId, 1);
+        TransactionHooks.onRollback(() -> change(filmId, -1));
+    }
+
+    public void likeRemoved(Long filmId) {
+        change(filmId, -1);
+        TransactionHooks.onRollback(() -> change(filmId, 1));
+    }
+
+    public long getLikes(Long filmId) {
+        lock.readLock().lock();
+        try {
+            return likes(filmId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] getLikes(long[] filmIds) {
+        final long[] likes = new long[filmIds.length];
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < filmIds.length; i++) {
+                likes[i] = likes(filmIds[i]);
+            }
+            return likes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> getTop(int count) {
+        lock.readLock().lock();
+        try {
+            List<Long> top = new ArrayList<>(Math.min(Math.max(count, 0), ranking.size()));
+            for (FilmScore score : ranking) {
+                if (top.size() >= count) {
+                    break;
+                }
+                top.add(score.filmId());
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void retainRanked(BitSet films) {
+        lock.readLock().lock();
+        try {
+            films.and(ranked);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Top of the ranking restricted to {@code films}, which is narrowed to the ranked films in place.
+     * A dense filter walks the ranking until {@code count} matches are found; a sparse one selects
+     * the top among its own films instead of scanning past the non-matching part of the ranking.
+     */
+    public List<Long> getTop(int count, BitSet films) {
+        lock.readLock().lock();
+        try {
+            films.and(ranked);
+            final long matched = films.cardinality();
+            if (matched * matched >= (long) count * ranking.size()) {
+                final List<Long> top = new ArrayList<>(Math.min(count, (int) matched));
+                for (FilmScore score : ranking) {
+                    if (top.size() >= count) {
+                        break;
+                    }
+                    if (films.get((int) score.filmId())) {
+                        top.add(score.filmId());
+                    }
+                }
+                return top;
+            }
+            final TopKSelector selector = new TopKSelector((int) Math.min(count, matched));
+            for (int filmId = films.nextSetBit(0); filmId >= 0; filmId = films.nextSetBit(filmId + 1)) {
+                selector.offer(filmId, likesByFilm[filmId]);
+            }
+            return LongStream.of(selector.toArray()).boxed().toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void change(Long filmId, long delta) {
+        lock.writeLock().lock();
+        try {
+            long likes = likes(filmId);
+            if (likes > 0) {
+                ranking.remove(new FilmScore(filmId, likes));
+            }
+            put(filmId, likes + delta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long likes(long filmId) {
+        return filmId >= 0 && filmId < likesByFilm.length ? likesByFilm[(int) filmId] : 0L;
+    }
+
+    private void put(long filmId, long likes) {
+        final int index = Math.toIntExact(filmId);
+        if (index >= likesByFilm.length) {
+            likesByFilm = Arrays.copyOf(likesByFilm,
+                    Math.max(index + 1, likesByFilm.length + (likesByFilm.length >> 1)));
+        }
+        likesByFilm[index] = Math.max(likes, 0L);
+        if (likes > 0) {
+            ranking.add(new FilmScore(filmId, likes));
+            ranked.set(index);
+        } else {
+            ranked.clear(index);
+        }
+    }
+
+    private record FilmScore(long filmId, long likes) {
+    }
+}
@@ -0,0 +1,251 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over film names and descriptions: every term maps to the sorted ids of the films
+ * containing it, separately for both fields. Query words are matched as prefixes of indexed terms after
+ * stripping a common Russian inflection, so "любовью" finds "любовь" and "фильмы" finds "фильмом";
+ * words of {@value #MAX_EXACT_LENGTH} letters or fewer after stripping only match whole terms.
+ * Films must match every query word; relevance favours names over descriptions and whole words over
+ * prefixes, and is blended with the number of likes. Rebuilt from films on startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FilmSearchIndex {
+
+    static final String SQL_FIND_ALL_FILM_TEXTS = """
+            SELECT film_id,
+                   film_name,
+                   description
+            FROM films
+            """;
+
+    static final Locale RUSSIAN = Locale.forLanguageTag("ru");
+    static final int MAX_EXACT_LENGTH = 3;
+    static final int MIN_STEM_LENGTH = 4;
+    static final String[] ENDINGS = {
+            "иями", "ями", "ами", "ого", "его", "ому", "ему", "ыми", "ими", "ией",
+            "ах", "ях", "ов", "ев", "ей", "ой", "ий", "ый", "ая", "яя", "ое", "ее", "ые", "ие",
+            "ую", "юю", "ом", "ем", "ью", "ия",
+            "а", "я", "о", "е", "ы", "и", "у", "ю", "ь", "й"
+    };
+    static final int NAME_WEIGHT = 3;
+    static final int DESCRIPTION_WEIGHT = 1;
+    static final int WHOLE_WORD_FACTOR = 2;
+    static final double SCORE_SCALE = 1000.0;
+
+    final JdbcTemplate jdbc;
+    final FilmPopularityIndex popularity;
+    final NavigableMap<String, SortedLongSet> nameTerms = new TreeMap<>();
+    final NavigableMap<String, SortedLongSet> descriptionTerms = new TreeMap<>();
+    final Map<Long, FilmTerms> termsByFilm = new HashMap<>();
+    final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            nameTerms.clear();
+            descriptionTerms.clear();
+            termsByFilm.clear();
+            jdbc.query(SQL_FIND_ALL_FILM_TEXTS, rs -> {
+                put(rs.getLong("film_id"), terms(rs.getString("film_name"), rs.getString("description")));
+            });
+            log.info("Поисковый индекс загружен: {} фильмов, {} слов в названиях, {} слов в описаниях",
+                    termsByFilm.size(), nameTerms.size(), descriptionTerms.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void filmSaved(Long filmId, String name, String description) {
+        final FilmTerms previous = replace(filmId, terms(name, description));
+        TransactionHooks.onRollback(() -> replace(filmId, previous));
+    }
+
+    /**
+     * Ids of the best matching films, the most relevant first.
+     */
+    public long[] search(String query, int count) {
+        final List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return new long[0];
+        }
+        final LongIntCounter relevance;
+        lock.readLock().lock();
+        try {
+            LongIntCounter matched = null;
+            for (String word : words) {
+                final LongIntCounter wordRelevance = new LongIntCounter();
+                collect(nameTerms, word, NAME_WEIGHT, wordRelevance);
+                collect(descriptionTerms, word, DESCRIPTION_WEIGHT, wordRelevance);
+                matched = matched == null ? wordRelevance : retainAndSum(matched, wordRelevance);
+                if (matched.size() == 0) {
+                    return new long[0];
+                }
+            }
+            relevance = matched;
+        } finally {
+            lock.readLock().unlock();
+        }
+        final long[] filmIds = new long[relevance.size()];
+        final int[] scores = new int[relevance.size()];
+        final int[] next = {0};
+        relevance.forEach((filmId, score) -> {
+            filmIds[next[0]] = filmId;
+            scores[next[0]++] = score;
+        });
+        final long[] likes = popularity.getLikes(filmIds);
+        final TopKSelector top = new TopKSelector(Math.min(count, filmIds.length));
+        for (int i = 0; i < filmIds.length; i++) {
+            top.offer(filmIds[i], Math.round(scores[i] * (1 + Math.log1p(likes[i])) * SCORE_SCALE));
+        }
+        return top.toArray();
+    }
+
+    static List<String> tokenize(String text) {
+        final Set<String> words = new LinkedHashSet<>();
+        if (text == null) {
+            return new ArrayList<>(words);
+        }
+        final String normalized = text.toLowerCase(RUSSIAN).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            final boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    static String stem(String word) {
+        if (word.length() <= MIN_STEM_LENGTH) {
+            return word;
+        }
+        for (String ending : ENDINGS) {
+            if (word.endsWith(ending) && word.length() - ending.length() >= MIN_STEM_LENGTH - 1) {
+                return word.substring(0, word.length() - ending.length());
+            }
+        }
+        return word;
+    }
+
+    private static void collect(NavigableMap<String, SortedLongSet> terms, String word, int weight,
+                                LongIntCounter relevance) {
+        final String prefix = stem(word);
+        if (prefix.length() <= MAX_EXACT_LENGTH) {
+            final SortedLongSet films = terms.get(word);
+            if (films != null) {
+                addMax(relevance, films, weight * WHOLE_WORD_FACTOR);
+            }
+            return;
+        }
+        for (Map.Entry<String, SortedLongSet> term : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                .entrySet()) {
+            addMax(relevance, term.getValue(), term.getKey().equals(word) ? weight * WHOLE_WORD_FACTOR : weight);
+        }
+    }
+
+    private static void addMax(LongIntCounter relevance, SortedLongSet films, int score) {
+        for (int i = 0; i < films.size(); i++) {
+            final long filmId = films.get(i);
+            final int current = relevance.get(filmId);
+            if (current < score) {
+                relevance.add(filmId, score - current);
+            }
+        }
+    }
+
+    private static LongIntCounter retainAndSum(LongIntCounter matched, LongIntCounter wordRelevance) {
+        final LongIntCounter retained = new LongIntCounter(Math.min(matched.size(), wordRelevance.size()));
+        matched.forEach((filmId, score) -> {
+            final int wordScore = wordRelevance.get(filmId);
+            if (wordScore > 0) {
+                retained.add(filmId, score + wordScore);
+            }
+        });
+        return retained;
+    }
+
+    private static FilmTerms terms(String name, String description) {
+        return new FilmTerms(tokenize(name).toArray(String[]::new), tokenize(description).toArray(String[]::new));
+    }
+
+    private FilmTerms replace(long filmId, FilmTerms terms) {
+        lock.writeLock().lock();
+        try {
+            final FilmTerms previous = termsByFilm.remove(filmId);
+            if (previous != null) {
+                remove(nameTerms, previous.name(), filmId);
+                remove(descriptionTerms, previous.description(), filmId);
+            }
+            if (terms != null) {
+                put(filmId, terms);
+            }
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(long filmId, FilmTerms terms) {
+        termsByFilm.put(filmId, terms);
+        add(nameTerms, terms.name(), filmId);
+        add(descriptionTerms, terms.description(), filmId);
+    }
+
+    /**
+     * Adds the film to the postings of every word and replaces the words with the instances held by the index,
+     * so that the per-film term lists do not keep their own copies of the strings.
+     */
+    private static void add(NavigableMap<String, SortedLongSet> terms, String[] words, long filmId) {
+        for (int i = 0; i < words.length; i++) {
+            final Map.Entry<String, SortedLongSet> term = terms.ceilingEntry(words[i]);
+            if (term != null && term.getKey().equals(words[i])) {
+                term.getValue().add(filmId);
+                words[i] = term.getKey();
+            } else {
+                final SortedLongSet films = new SortedLongSet();
+                films.add(filmId);
+                terms.put(words[i], films);
+            }
+        }
+    }
+
+    private static void remove(Map<String, SortedLongSet> terms, String[] words, long filmId) {
+        for (String word : words) {
+            final SortedLongSet films = terms.get(word);
+            if (films != null && films.remove(filmId) && films.isEmpty()) {
+                terms.remove(word);
+            }
+        }
+    }
+
+    private record FilmTerms(String[] name, String[] description) {
+    }
+}
@@ -0,0 +1,247 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.config.TrendingConfig;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Likes per film over sliding time windows. Time is cut into buckets; a ring buffer keeps the per-film
+ * like counts of the buckets of the longest window, and every configured window keeps its per-film sums
+ * and a ranking ordered like {@link FilmPopularityIndex}. When a bucket leaves a window its counts are
+ * subtracted from that window, so a query only walks the head of a ranking. Windows slide by whole
+ * buckets. Warmed from the likes of the longest window in film_likes.
+ */
+@Slf4j
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FilmTrendingIndex {
+
+    static final String SQL_FIND_RECENT_LIKES = """
+            SELECT film_id,
+                   liked_at
+            FROM film_likes
+            WHERE liked_at >= ?
+            """;
+
+    static final Comparator<FilmScore> RANKING_ORDER = Comparator.comparingLong(FilmScore::likes).reversed()
+            .thenComparingLong(FilmScore::filmId);
+
+    final JdbcTemplate jdbc;
+    final Clock clock;
+    final long bucketMillis;
+    final List<Window> windows = new ArrayList<>();
+    final LongIntCounter[] ring;
+    final long[] ringBuckets;
+    final ReadWriteLock lock = new ReentrantReadWriteLock();
+    long currentBucket;
+
+    public FilmTrendingIndex(JdbcTemplate jdbc, TrendingConfig.TrendingProperties properties, Clock clock) {
+        this.jdbc = jdbc;
+        this.clock = clock;
+        this.bucketMillis = properties.getBucket().toMillis();
+        if (bucketMillis <= 0 || properties.getWindows().isEmpty()) {
+            throw new IllegalStateException("Для окон популярности нужны положительный размер корзины и хотя бы одно окно");
+        }
+        for (Duration window : properties.getWindows()) {
+            if (window.toMillis() <= 0 || window.toMillis() % bucketMillis != 0) {
+                throw new IllegalStateException("Окно популярности " + window + " должно быть кратно корзине "
+                        + properties.getBucket());
+            }
+            windows.add(new Window(window, window.toMillis() / bucketMillis));
+        }
+        final int ringSize = Math.toIntExact(windows.stream().mapToLong(Window::buckets).max().orElseThrow());
+        this.ring = new LongIntCounter[ringSize];
+        this.ringBuckets = new long[ringSize];
+        this.currentBucket = bucketOf(clock.instant());
+    }
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            windows.forEach(Window::clear);
+            currentBucket = bucketOf(clock.instant());
+            Arrays.fill(ring, null);
+            final Instant since = Instant.ofEpochMilli((currentBucket - ring.length + 1) * bucketMillis);
+            final int[] loaded = {0};
+            jdbc.query(SQL_FIND_RECENT_LIKES, rs -> {
+                change(rs.getLong("film_id"), rs.getObject("liked_at", OffsetDateTime.class).toInstant(), 1);
+                loaded[0]++;
+            }, OffsetDateTime.ofInstant(since, ZoneOffset.UTC));
+            log.info("Окна популярности загружены: {} лайков с {}", loaded[0], since);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Duration> getWindows() {
+        return windows.stream().map(Window::duration).toList();
+    }
+
+    public void likeAdded(Long filmId, Instant likedAt) {
+        update(filmId, likedAt, 1);
+        TransactionHooks.onRollback(() -> update(filmId, likedAt, -1));
+    }
+
+    /**
+     * {@code likedAt} is the time stored with the removed like; likes without a time were made before
+     * likes had one and are not counted.
+     */
+    public void likeRemoved(Long filmId, Instant likedAt) {
+        if (likedAt == null) {
+            return;
+        }
+        update(filmId, likedAt, -1);
+        TransactionHooks.onRollback(() -> update(filmId, likedAt, 1));
+    }
+
+    /**
+     * Films with the most likes within {@code window}, one of {@link #getWindows()}; ties go to the
+     * smaller id. Films without likes in the window are not returned.
+     */
+    public List<Long> getTop(Duration window, int count) {
+        final long now = bucketOf(clock.instant());
+        lock.readLock().lock();
+        try {
+            if (now == currentBucket) {
+                return top(window, count);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            advance(now);
+            return top(window, count);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Long> top(Duration duration, int count) {
+        final Window window = windows.stream()
+                .filter(candidate -> candidate.duration().equals(duration))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Окно популярности " + duration + " не настроено"));
+        final List<Long> top = new ArrayList<>(Math.min(Math.max(count, 0), window.ranking().size()));
+        for (FilmScore score : window.ranking()) {
+            if (top.size() >= count) {
+                break;
+            }
+            top.add(score.filmId());
+        }
+        return top;
+    }
+
+    private void update(long filmId, Instant likedAt, int delta) {
+        lock.writeLock().lock();
+        try {
+            advance(bucketOf(clock.instant()));
+            change(filmId, likedAt, delta);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void change(long filmId, Instant likedAt, int delta) {
+        // a like stamped ahead of this clock counts in the current bucket
+        final long bucket = Math.min(bucketOf(likedAt), currentBucket);
+        if (bucket <= currentBucket - ring.length) {
+            return;
+        }
+        final int slot = (int) Math.floorMod(bucket, (long) ring.length);
+        if (ring[slot] == null || ringBuckets[slot] != bucket) {
+            ring[slot] = new LongIntCounter();
+            ringBuckets[slot] = bucket;
+        }
+        ring[slot].add(filmId, delta);
+        for (Window window : windows) {
+            if (bucket > currentBucket - window.buckets()) {
+                window.change(filmId, delta);
+            }
+        }
+    }
+
+    /**
+     * Moves the current bucket to {@code bucket}, subtracting every bucket that leaves a window from it.
+     */
+    private void advance(long bucket) {
+        if (bucket <= currentBucket) {
+            return;
+        }
+        if (bucket - currentBucket >= ring.length) {
+            windows.forEach(Window::clear);
+            Arrays.fill(ring, null);
+            currentBucket = bucket;
+            return;
+        }
+        while (currentBucket < bucket) {
+            currentBucket++;
+            for (Window window : windows) {
+                final long leaving = currentBucket - window.buckets();
+                final int slot = (int) Math.floorMod(leaving, (long) ring.length);
+                if (ring[slot] != null && ringBuckets[slot] == leaving) {
+                    ring[slot].forEach((filmId, likes) -> window.change(filmId, -likes));
+                }
+            }
+            ring[(int) Math.floorMod(currentBucket, (long) ring.length)] = null;
+        }
+    }
+
+    private long bucketOf(Instant time) {
+        return Math.floorDiv(time.toEpochMilli(), bucketMillis);
+    }
+
+    private record Window(Duration duration, long buckets, Map<Long, Long> likesByFilm,
+                          NavigableSet<FilmScore> ranking) {
+
+        Window(Duration duration, long buckets) {
+            this(duration, buckets, new HashMap<>(), new TreeSet<>(RANKING_ORDER));
+        }
+
+        void change(long filmId, long delta) {
+            if (delta == 0) {
+                return;
+            }
+            final long likes = likesByFilm.getOrDefault(filmId, 0L);
+            if (likes > 0) {
+                ranking.remove(new FilmScore(filmId, likes));
+            }
+            final long changed = likes + delta;
+            if (changed > 0) {
+                likesByFilm.put(filmId, changed);
+                ranking.add(new FilmScore(filmId, changed));
+            } else {
+                likesByFilm.remove(filmId);
+            }
+        }
+
+        void clear() {
+            likesByFilm.clear();
+            ranking.clear();
+        }
+    }
+
+    private record FilmScore(long filmId, long likes) {
+    }
+}
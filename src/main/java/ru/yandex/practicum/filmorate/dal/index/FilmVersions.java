@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Version of every film representation, used as an HTTP entity tag. Only films changed since startup are
+ * tracked; the boot epoch in the tag invalidates tags issued by a previous run. A version is bumped after
+ * the change commits, and readers take the tag before loading the film, so a tag never labels data older
+ * than itself.
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FilmVersions {
+
+    final long epoch = System.currentTimeMillis();
+    final ConcurrentMap<Long, Long> versions = new ConcurrentHashMap<>();
+
+    public void changed(Long filmId) {
+        TransactionHooks.afterCommit(() -> versions.merge(filmId, 1L, Long::sum));
+    }
+
+    public String getTag(Long filmId) {
+        return epoch + "-" + versions.getOrDefault(filmId, 0L);
+    }
+
+    /**
+     * Tag of an ordered list of films: changes when the list or any of its films changes.
+     */
+    public String getTag(List<Long> filmIds) {
+        final StringBuilder tag = new StringBuilder().append(epoch);
+        for (Long filmId : filmIds) {
+            tag.append('-').append(filmId).append('.').append(versions.getOrDefault(filmId, 0L));
+        }
+        return tag.toString();
+    }
+}
@@ -0,0 +1,181 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Adjacency lists of the friendship graph (user_id -> friend_id) and its reverse (friend_id -> user_id),
+ * one sorted primitive set per user. The database stays the source of truth: the index is loaded on
+ * startup by {@link IndexWarmStart}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FriendshipIndex {
+
+    static final String SQL_FIND_ALL_FRIENDSHIPS = """
+            SELECT user_id,
+                   friend_id
+            FROM user_friends
+            ORDER BY user_id, friend_id
+            """;
+
+    static final int PARALLEL_FAN_OUT = 50_000;
+    static final int MIN_PARALLEL_CHUNK = 64;
+
+    final JdbcTemplate jdbc;
+    final Map<Long, SortedLongSet> friendsByUser = new HashMap<>();
+    final Map<Long, SortedLongSet> followersByUser = new HashMap<>();
+    final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void load() {
+        load(friendships -> jdbc.query(SQL_FIND_ALL_FRIENDSHIPS, rs -> {
+            friendships.accept(rs.getLong("user_id"), rs.getLong("friend_id"));
+        }));
+    }
+
+    /**
+     * Replaces the graph with the (user id, friend id) pairs that {@code source} passes to its argument.
+     */
+    public void load(Consumer<LongPairConsumer> source) {
+        lock.writeLock().lock();
+        try {
+            friendsByUser.clear();
+            followersByUser.clear();
+            source.accept(this::add);
+            log.info("Граф дружбы загружен: {} пользователей с друзьями", friendsByUser.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void friendAdded(Long userId, Long friendId) {
+        update(userId, friendId, true);
+        TransactionHooks.onRollback(() -> update(userId, friendId, false));
+    }
+
+    public void friendRemoved(Long userId, Long friendId) {
+        update(userId, friendId, false);
+        TransactionHooks.onRollback(() -> update(userId, friendId, true));
+    }
+
+    public long[] getFriends(Long userId) {
+        lock.readLock().lock();
+        try {
+            final SortedLongSet friends = friendsByUser.get(userId);
+            return friends == null ? new long[0] : friends.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] getCommonFriends(Long userId, Long otherId) {
+        lock.readLock().lock();
+        try {
+            return SortedLongSet.intersect(friendsByUser.get(userId), friendsByUser.get(otherId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Users that are not friends of {@code userId} yet, ranked by the number of common friends with it
+     * (as in {@link #getCommonFriends}), most common first. Candidates are the users who added any friend
+     * of {@code userId}; large fan-outs are counted in parallel chunks.
+     */
+    public long[] suggestFriends(Long userId, int count) {
+        lock.readLock().lock();
+        try {
+            final SortedLongSet friends = friendsByUser.get(userId);
+            if (friends == null) {
+                return new long[0];
+            }
+            long fanOut = 0;
+            for (int i = 0; i < friends.size(); i++) {
+                fanOut += size(followersByUser.get(friends.get(i)));
+            }
+            final LongIntCounter mutual = fanOut >= PARALLEL_FAN_OUT && friends.size() >= 2 * MIN_PARALLEL_CHUNK
+                    ? countFollowersInParallel(friends)
+                    : countFollowers(friends, 0, friends.size());
+
+            final TopKSelector top = new TopKSelector(Math.min(count, mutual.size()));
+            mutual.forEach((candidate, common) -> {
+                if (candidate != userId && !friends.contains(candidate)) {
+                    top.offer(candidate, common);
+                }
+            });
+            return top.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private LongIntCounter countFollowersInParallel(SortedLongSet friends) {
+        final int chunks = Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, friends.size() / MIN_PARALLEL_CHUNK);
+        final int chunkSize = (friends.size() + chunks - 1) / chunks;
+        return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> countFollowers(friends, chunk * chunkSize,
+                        Math.min(friends.size(), (chunk + 1) * chunkSize)))
+                .reduce(LongIntCounter::merge)
+                .orElseGet(LongIntCounter::new);
+    }
+
+    private LongIntCounter countFollowers(SortedLongSet friends, int from, int to) {
+        final LongIntCounter counter = new LongIntCounter();
+        for (int i = from; i < to; i++) {
+            final SortedLongSet followers = followersByUser.get(friends.get(i));
+            for (int j = 0; j < size(followers); j++) {
+                counter.increment(followers.get(j));
+            }
+        }
+        return counter;
+    }
+
+    private static int size(SortedLongSet set) {
+        return set == null ? 0 : set.size();
+    }
+
+    private void update(long userId, long friendId, boolean friends) {
+        lock.writeLock().lock();
+        try {
+            if (friends) {
+                add(userId, friendId);
+            } else {
+                remove(userId, friendId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(long userId, long friendId) {
+        remove(friendsByUser, userId, friendId);
+        remove(followersByUser, friendId, userId);
+    }
+
+    private void add(long userId, long friendId) {
+        friendsByUser.computeIfAbsent(userId, id -> new SortedLongSet()).add(friendId);
+        followersByUser.computeIfAbsent(friendId, id -> new SortedLongSet()).add(userId);
+    }
+
+    private static void remove(Map<Long, SortedLongSet> adjacency, long from, long to) {
+        final SortedLongSet set = adjacency.get(from);
+        if (set != null && set.remove(to) && set.isEmpty()) {
+            adjacency.remove(from);
+        }
+    }
+}
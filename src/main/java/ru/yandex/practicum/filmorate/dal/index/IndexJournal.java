@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Friendship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the changes behind {@link LikeMatrix}, {@link FriendshipIndex} and {@link FilmCatalogIndex} in
+ * index_journal, in the transaction of the change, so that {@link IndexWarmStart} can bring a snapshot of
+ * the indexes up to date. Writes nothing unless index snapshots are enabled. Callers record a change after
+ * the statement that made it, so that changes of the same row are journalled in commit order.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class IndexJournal {
+
+    static final int LIKE = 1;
+    static final int FRIENDSHIP = 2;
+    static final int FILM = 3;
+
+    static final String SQL_APPEND = """
+            INSERT INTO index_journal (kind, first_id, second_id, added)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    final JdbcTemplate jdbc;
+    final IndexSnapshotProperties properties;
+
+    public void likeChanged(Long filmId, Long userId, boolean added) {
+        if (properties.isEnabled()) {
+            jdbc.update(SQL_APPEND, LIKE, filmId, userId, added);
+        }
+    }
+
+    /**
+     * Records the likes whose statement in a batch changed a row, {@code affected} being the batch result.
+     */
+    public void likesChanged(List<FilmLike> likes, int[] affected, boolean added) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        final List<Object[]> entries = new ArrayList<>();
+        for (int i = 0; i < affected.length; i++) {
+            if (affected[i] > 0) {
+                entries.add(new Object[]{LIKE, likes.get(i).getFilmId(), likes.get(i).getUserId(), added});
+            }
+        }
+        append(entries);
+    }
+
+    public void friendshipChanged(Long userId, Long friendId, boolean added) {
+        if (properties.isEnabled()) {
+            jdbc.update(SQL_APPEND, FRIENDSHIP, userId, friendId, added);
+        }
+    }
+
+    public void friendshipsAdded(List<Friendship> friendships, int[] inserted) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        final List<Object[]> entries = new ArrayList<>();
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] > 0) {
+                entries.add(new Object[]{FRIENDSHIP, friendships.get(i).getUserId(), friendships.get(i).getFriendId(), true});
+            }
+        }
+        append(entries);
+    }
+
+    public void filmsChanged(List<Film> films) {
+        if (properties.isEnabled()) {
+            append(films.stream()
+                    .map(film -> new Object[]{FILM, film.getId(), null, null})
+                    .toList());
+        }
+    }
+
+    private void append(List<Object[]> entries) {
+        if (!entries.isEmpty()) {
+            jdbc.batchUpdate(SQL_APPEND, entries);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of the like matrix, the friendship graph and the catalog indexes. The file starts with a
+ * {@value #HEADER_SIZE}-byte header: magic, format version, snapshot id, creation time, the last journal
+ * entry the snapshot covers, body length and CRC32C of the body. The body is a sequence of sections, each a
+ * 16-byte section header (section id, record count) followed by 16-byte records, so no value crosses the
+ * boundary of a {@value #MAP_WINDOW}-byte mapped window. Readers map the file and verify the checksum
+ * before returning anything; writers write a temporary file and rename it into place.
+ */
+final class IndexSnapshotFile {
+
+    static final int MAGIC = 0x464D4958;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int SECTION_HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 16;
+    static final long MAP_WINDOW = 1L << 30;
+    static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    // film id, release year, MPA rating id or NO_MPA
+    static final int FILMS = 1;
+    // film id, genre id
+    static final int FILM_GENRES = 2;
+    // user id, film id
+    static final int LIKES = 3;
+    // user id, friend id
+    static final int FRIENDSHIPS = 4;
+    static final int[] SECTIONS = {FILMS, FILM_GENRES, LIKES, FRIENDSHIPS};
+    static final int NO_MPA = -1;
+
+    private IndexSnapshotFile() {
+    }
+
+    record Header(UUID snapshotId, long createdAt, long journalSeq) {
+    }
+
+    static Snapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Файл " + file + " не является снимком индексов");
+            }
+            final MappedByteBuffer[] windows = map(channel, size);
+            final ByteBuffer head = windows[0].duplicate();
+            if (head.getInt() != MAGIC) {
+                throw new IOException("Файл " + file + " не является снимком индексов");
+            }
+            final int version = head.getInt();
+            if (version != VERSION) {
+                throw new IOException("Неподдерживаемая версия снимка индексов: " + version + ", ожидается " + VERSION);
+            }
+            final Header header = new Header(new UUID(head.getLong(), head.getLong()), head.getLong(), head.getLong());
+            final long bodyLength = head.getLong();
+            final int checksum = head.getInt();
+            if (HEADER_SIZE + bodyLength != size) {
+                throw new IOException("Снимок индексов " + file + " обрезан: " + size + " байт вместо "
+                        + (HEADER_SIZE + bodyLength));
+            }
+            if (checksum(windows) != checksum) {
+                throw new IOException("Контрольная сумма снимка индексов " + file + " не совпадает");
+            }
+            return new Snapshot(header, windows, size);
+        }
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, long size) throws IOException {
+        final MappedByteBuffer[] windows = new MappedByteBuffer[(int) ((size + MAP_WINDOW - 1) / MAP_WINDOW)];
+        for (int i = 0; i < windows.length; i++) {
+            final long position = i * MAP_WINDOW;
+            windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, size - position));
+        }
+        return windows;
+    }
+
+    private static int checksum(MappedByteBuffer[] windows) {
+        final CRC32C crc = new CRC32C();
+        for (int i = 0; i < windows.length; i++) {
+            crc.update(windows[i].duplicate().position(i == 0 ? HEADER_SIZE : 0));
+        }
+        return (int) crc.getValue();
+    }
+
+    static final class Snapshot {
+
+        private final Header header;
+        private final MappedByteBuffer[] windows;
+        // section id -> position of the first record and number of records
+        private final Map<Integer, long[]> sections = new HashMap<>();
+
+        private Snapshot(Header header, MappedByteBuffer[] windows, long size) throws IOException {
+            this.header = header;
+            this.windows = windows;
+            long position = HEADER_SIZE;
+            while (position < size) {
+                final int section = getInt(position);
+                final long count = getLong(position + 8);
+                position += SECTION_HEADER_SIZE;
+                if (count < 0 || count > (size - position) / RECORD_SIZE) {
+                    throw new IOException("Раздел " + section + " снимка индексов выходит за конец файла");
+                }
+                sections.put(section, new long[]{position, count});
+                position += count * RECORD_SIZE;
+            }
+            for (int section : SECTIONS) {
+                if (!sections.containsKey(section)) {
+                    throw new IOException("В снимке индексов нет раздела " + section);
+                }
+            }
+        }
+
+        Header header() {
+            return header;
+        }
+
+        void forEachPair(int section, LongPairConsumer consumer) {
+            final long[] location = sections.get(section);
+            for (long i = 0, position = location[0]; i < location[1]; i++, position += RECORD_SIZE) {
+                consumer.accept(getLong(position), getLong(position + 8));
+            }
+        }
+
+        void forEachFilm(FilmCatalogIndex.FilmConsumer consumer) {
+            final long[] location = sections.get(FILMS);
+            for (long i = 0, position = location[0]; i < location[1]; i++, position += RECORD_SIZE) {
+                final int mpaId = getInt(position + 12);
+                consumer.accept(getLong(position), getInt(position + 8), mpaId == NO_MPA ? null : mpaId);
+            }
+        }
+
+        private long getLong(long position) {
+            return windows[(int) (position / MAP_WINDOW)].getLong((int) (position % MAP_WINDOW));
+        }
+
+        private int getInt(long position) {
+            return windows[(int) (position / MAP_WINDOW)].getInt((int) (position % MAP_WINDOW));
+        }
+    }
+
+    /**
+     * Writes sections one after another; the file appears under its name only after {@link #commit}.
+     * Record methods throw {@link UncheckedIOException}, so they can be called from JDBC row callbacks.
+     */
+    static final class Writer implements Closeable {
+
+        private final Path target;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        private long sectionPosition;
+        private long sectionCount;
+        private boolean committed;
+
+        Writer(Path target) throws IOException {
+            this.target = target.toAbsolutePath();
+            Files.createDirectories(this.target.getParent());
+            this.temporary = Files.createTempFile(this.target.getParent(), this.target.getFileName().toString(), ".tmp");
+            this.channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(HEADER_SIZE);
+        }
+
+        void beginSection(int section) {
+            flush();
+            try {
+                sectionPosition = channel.position();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            sectionCount = 0;
+            buffer.putInt(section).putInt(0).putLong(0);
+        }
+
+        void pair(long first, long second) {
+            reserve();
+            buffer.putLong(first).putLong(second);
+        }
+
+        void film(long filmId, int year, Integer mpaId) {
+            reserve();
+            buffer.putLong(filmId).putInt(year).putInt(mpaId == null ? NO_MPA : mpaId);
+        }
+
+        void endSection() {
+            flush();
+            write(ByteBuffer.allocate(8).putLong(0, sectionCount), sectionPosition + 8);
+        }
+
+        void commit(Header header) throws IOException {
+            flush();
+            final long size = channel.size();
+            final ByteBuffer head = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(header.snapshotId().getMostSignificantBits())
+                    .putLong(header.snapshotId().getLeastSignificantBits())
+                    .putLong(header.createdAt())
+                    .putLong(header.journalSeq())
+                    .putLong(size - HEADER_SIZE)
+                    .putInt(checksum(map(channel, size)));
+            write(head.clear(), 0);
+            channel.force(true);
+            channel.close();
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+            if (!committed) {
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        private void reserve() {
+            if (buffer.remaining() < RECORD_SIZE) {
+                flush();
+            }
+            sectionCount++;
+        }
+
+        private void flush() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+
+        private void write(ByteBuffer data, long position) {
+            try {
+                while (data.hasRemaining()) {
+                    position += channel.write(data, position);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings of {@link IndexWarmStart} and {@link IndexJournal}: whether snapshots are used, where the file is
+ * kept and how often it is rewritten.
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties("filmorate.index-snapshot")
+public class IndexSnapshotProperties {
+    boolean enabled;
+    Path file = Path.of("./db/filmorate.indexes");
+    Duration interval = Duration.ofHours(1);
+    // journal entries younger than this may belong to transactions still in flight during the scan
+    Duration inFlightMargin = Duration.ofMinutes(1);
+}
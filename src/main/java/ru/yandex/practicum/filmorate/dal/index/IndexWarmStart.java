@@ -0,0 +1,237 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads {@link LikeMatrix}, {@link FriendshipIndex} and {@link FilmCatalogIndex} on startup. With index
+ * snapshots enabled they are read from the snapshot file registered in index_snapshot and brought up to
+ * date by replaying the later entries of {@link IndexJournal}; without a matching snapshot, or with
+ * snapshots disabled, they are rebuilt from the tables. While enabled, a background thread writes a new
+ * snapshot every {@code interval} from a scan of the tables and drops the journal entries it covers.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class IndexWarmStart {
+
+    static final String SQL_FIND_SNAPSHOT = """
+            SELECT snapshot_id
+            FROM index_snapshot
+            """;
+
+    static final String SQL_DELETE_SNAPSHOT = """
+            DELETE FROM index_snapshot
+            """;
+
+    static final String SQL_SAVE_SNAPSHOT = """
+            INSERT INTO index_snapshot (snapshot_id, journal_seq)
+            VALUES (?, ?)
+            """;
+
+    // entries of transactions started within the margin may still be uncommitted when the tables are scanned
+    static final String SQL_FIND_SETTLED_JOURNAL_SEQ = """
+            SELECT COALESCE(MAX(seq), 0)
+            FROM index_journal
+            WHERE created_at < DATEADD(MILLISECOND, ?, LOCALTIMESTAMP)
+            """;
+
+    static final String SQL_FIND_JOURNAL_AFTER = """
+            SELECT kind,
+                   first_id,
+                   second_id,
+                   added
+            FROM index_journal
+            WHERE seq > ?
+            ORDER BY seq
+            """;
+
+    static final String SQL_DELETE_JOURNAL_UP_TO = """
+            DELETE FROM index_journal
+            WHERE seq <= ?
+            """;
+
+    final JdbcTemplate jdbc;
+    final LikeMatrix likeMatrix;
+    final FriendshipIndex friendshipIndex;
+    final FilmCatalogIndex catalog;
+    final IndexSnapshotProperties properties;
+    final PlatformTransactionManager transactionManager;
+    ScheduledExecutorService writer;
+
+    @PostConstruct
+    public void load() {
+        if (!properties.isEnabled()) {
+            forgetSnapshot();
+            loadFromTables();
+            return;
+        }
+        final boolean fromSnapshot = loadFromSnapshot();
+        if (!fromSnapshot) {
+            loadFromTables();
+        }
+        final Duration firstDelay = fromSnapshot ? properties.getInterval() : properties.getInFlightMargin();
+        writer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("index-snapshot").daemon().factory());
+        writer.scheduleWithFixedDelay(this::writeSnapshotLogged, firstDelay.toMillis(),
+                properties.getInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes a snapshot of the tables, registers it as the current one and drops the journal entries it covers.
+     */
+    public void writeSnapshot() throws IOException {
+        final long started = System.nanoTime();
+        final long journalSeq = jdbc.queryForObject(SQL_FIND_SETTLED_JOURNAL_SEQ, Long.class,
+                -properties.getInFlightMargin().toMillis());
+        final UUID snapshotId = UUID.randomUUID();
+        try (IndexSnapshotFile.Writer file = new IndexSnapshotFile.Writer(properties.getFile())) {
+            file.beginSection(IndexSnapshotFile.FILMS);
+            jdbc.query(FilmCatalogIndex.SQL_FIND_ALL_FILMS, rs -> {
+                final int mpaId = rs.getInt("mpa_id");
+                final boolean withoutMpa = rs.wasNull();
+                file.film(rs.getLong("film_id"), rs.getDate("release_date").toLocalDate().getYear(),
+                        withoutMpa ? null : mpaId);
+            });
+            file.endSection();
+            file.beginSection(IndexSnapshotFile.FILM_GENRES);
+            jdbc.query(FilmCatalogIndex.SQL_FIND_ALL_FILM_GENRES, rs -> {
+                file.pair(rs.getLong("film_id"), rs.getLong("genre_id"));
+            });
+            file.endSection();
+            file.beginSection(IndexSnapshotFile.LIKES);
+            jdbc.query(LikeMatrix.SQL_FIND_ALL_LIKES, rs -> {
+                file.pair(rs.getLong("user_id"), rs.getLong("film_id"));
+            });
+            file.endSection();
+            file.beginSection(IndexSnapshotFile.FRIENDSHIPS);
+            jdbc.query(FriendshipIndex.SQL_FIND_ALL_FRIENDSHIPS, rs -> {
+                file.pair(rs.getLong("user_id"), rs.getLong("friend_id"));
+            });
+            file.endSection();
+            file.commit(new IndexSnapshotFile.Header(snapshotId, System.currentTimeMillis(), journalSeq));
+        }
+        // a restart before the new id is committed finds the id of the replaced file and rebuilds from the tables;
+        // the journal is pruned in the same transaction, so it is never shorter than the registered snapshot needs
+        final Integer dropped = new TransactionTemplate(transactionManager).execute(status -> {
+            jdbc.update(SQL_DELETE_SNAPSHOT);
+            jdbc.update(SQL_SAVE_SNAPSHOT, snapshotId, journalSeq);
+            return jdbc.update(SQL_DELETE_JOURNAL_UP_TO, journalSeq);
+        });
+        log.info("Снимок индексов {} записан за {} мс, удалено записей журнала: {}", properties.getFile(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), dropped);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    private void writeSnapshotLogged() {
+        try {
+            writeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось записать снимок индексов {}", properties.getFile(), e);
+        }
+    }
+
+    private boolean loadFromSnapshot() {
+        final List<UUID> registered = jdbc.queryForList(SQL_FIND_SNAPSHOT, UUID.class);
+        if (registered.isEmpty()) {
+            log.info("Снимок индексов ещё не записан, индексы строятся по таблицам");
+            return false;
+        }
+        final long started = System.nanoTime();
+        try {
+            final IndexSnapshotFile.Snapshot snapshot = IndexSnapshotFile.open(properties.getFile());
+            if (!snapshot.header().snapshotId().equals(registered.getFirst())) {
+                log.warn("Снимок индексов {} не соответствует базе данных, индексы строятся по таблицам",
+                        properties.getFile());
+                return false;
+            }
+            catalog.load(snapshot::forEachFilm, genres -> snapshot.forEachPair(IndexSnapshotFile.FILM_GENRES, genres));
+            likeMatrix.load(likes -> snapshot.forEachPair(IndexSnapshotFile.LIKES, likes));
+            friendshipIndex.load(friendships -> snapshot.forEachPair(IndexSnapshotFile.FRIENDSHIPS, friendships));
+            final int replayed = replayJournal(snapshot.header().journalSeq());
+            log.info("Индексы загружены из снимка {} за {} мс, применено записей журнала: {}", properties.getFile(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), replayed);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Не удалось загрузить снимок индексов {}, индексы строятся по таблицам", properties.getFile(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Applies the journal entries after {@code journalSeq} in order. Entries already contained in the
+     * snapshot are applied again, which leaves the indexes unchanged.
+     */
+    private int replayJournal(long journalSeq) {
+        final Set<Long> changedFilms = new LinkedHashSet<>();
+        final int[] replayed = {0};
+        jdbc.query(SQL_FIND_JOURNAL_AFTER, rs -> {
+            final int kind = rs.getInt("kind");
+            final long firstId = rs.getLong("first_id");
+            final long secondId = rs.getLong("second_id");
+            final boolean added = rs.getBoolean("added");
+            switch (kind) {
+                case IndexJournal.LIKE -> {
+                    if (added) {
+                        likeMatrix.likeAdded(firstId, secondId);
+                    } else {
+                        likeMatrix.likeRemoved(firstId, secondId);
+                    }
+                }
+                case IndexJournal.FRIENDSHIP -> {
+                    if (added) {
+                        friendshipIndex.friendAdded(firstId, secondId);
+                    } else {
+                        friendshipIndex.friendRemoved(firstId, secondId);
+                    }
+                }
+                case IndexJournal.FILM -> changedFilms.add(firstId);
+                default -> throw new IllegalStateException("Неизвестный вид записи журнала индексов: " + kind);
+            }
+            replayed[0]++;
+        }, journalSeq);
+        changedFilms.forEach(catalog::reload);
+        return replayed[0];
+    }
+
+    private void loadFromTables() {
+        catalog.load();
+        likeMatrix.load();
+        friendshipIndex.load();
+    }
+
+    /**
+     * Changes made while snapshots are disabled are not journalled, so the registered snapshot and the
+     * journal can no longer be used.
+     */
+    private void forgetSnapshot() {
+        if (jdbc.update(SQL_DELETE_SNAPSHOT) > 0) {
+            jdbc.update(SQL_DELETE_JOURNAL_UP_TO, Long.MAX_VALUE);
+            log.info("Снимки индексов отключены, снимок {} больше не используется", properties.getFile());
+        }
+    }
+}
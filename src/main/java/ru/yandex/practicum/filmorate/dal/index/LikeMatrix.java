@@ -0,0 +1,161 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Sparse user x film like matrix: the row of every user (liked films) and the column of every film
+ * (users who liked it) are kept as sorted primitive id sets. Used for collaborative-filtering
+ * recommendations; loaded on startup by {@link IndexWarmStart}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class LikeMatrix {
+
+    static final String SQL_FIND_ALL_LIKES = """
+            SELECT user_id,
+                   film_id
+            FROM film_likes
+            ORDER BY user_id, film_id
+            """;
+
+    static final int DEADLINE_CHECK_INTERVAL = 1024;
+
+    final JdbcTemplate jdbc;
+    final RecommendationProperties properties;
+    final Map<Long, SortedLongSet> filmsByUser = new HashMap<>();
+    final Map<Long, SortedLongSet> usersByFilm = new HashMap<>();
+    final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void load() {
+        load(likes -> jdbc.query(SQL_FIND_ALL_LIKES, rs -> {
+            likes.accept(rs.getLong("user_id"), rs.getLong("film_id"));
+        }));
+    }
+
+    /**
+     * Replaces the matrix with the (user id, film id) pairs that {@code source} passes to its argument.
+     */
+    public void load(Consumer<LongPairConsumer> source) {
+        lock.writeLock().lock();
+        try {
+            filmsByUser.clear();
+            usersByFilm.clear();
+            source.accept(this::add);
+            log.info("Матрица лайков загружена: {} пользователей, {} фильмов", filmsByUser.size(), usersByFilm.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void likeAdded(Long filmId, Long userId) {
+        update(userId, filmId, true);
+        TransactionHooks.onRollback(() -> update(userId, filmId, false));
+    }
+
+    public void likeRemoved(Long filmId, Long userId) {
+        update(userId, filmId, false);
+        TransactionHooks.onRollback(() -> update(userId, filmId, true));
+    }
+
+    /**
+     * Films liked by the users whose likes overlap most with {@code userId}'s, weighted by the overlap,
+     * excluding films the user already liked. The user's films are scanned from the least liked to the
+     * most liked, so when the time budget runs out the strongest signals have already been counted and
+     * the best result found so far is returned.
+     */
+    public long[] recommendFilms(Long userId, int count) {
+        final long deadline = System.nanoTime() + properties.getTimeBudget().toNanos();
+        final long user = userId;
+        lock.readLock().lock();
+        try {
+            final SortedLongSet liked = filmsByUser.get(userId);
+            if (liked == null) {
+                return new long[0];
+            }
+            final long[] films = liked.toArray();
+            final Long[] byPopularity = Arrays.stream(films).boxed()
+                    .sorted(Comparator.comparingInt(filmId -> usersByFilm.get(filmId).size()))
+                    .toArray(Long[]::new);
+
+            final LongIntCounter overlap = new LongIntCounter();
+            int visited = 0;
+            scan:
+            for (Long filmId : byPopularity) {
+                final SortedLongSet users = usersByFilm.get(filmId);
+                for (int i = 0; i < users.size(); i++) {
+                    if (users.get(i) != user) {
+                        overlap.increment(users.get(i));
+                    }
+                    if (++visited % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                        log.debug("Время на подбор рекомендаций для пользователя {} исчерпано", userId);
+                        break scan;
+                    }
+                }
+            }
+
+            final TopKSelector nearest = new TopKSelector(properties.getNeighbours());
+            overlap.forEach(nearest::offer);
+
+            final LongIntCounter scores = new LongIntCounter();
+            for (long neighbour : nearest.toArray()) {
+                final int weight = overlap.get(neighbour);
+                final SortedLongSet neighbourFilms = filmsByUser.get(neighbour);
+                for (int i = 0; i < neighbourFilms.size(); i++) {
+                    if (!liked.contains(neighbourFilms.get(i))) {
+                        scores.add(neighbourFilms.get(i), weight);
+                    }
+                }
+                if (System.nanoTime() > deadline) {
+                    break;
+                }
+            }
+
+            final TopKSelector top = new TopKSelector(Math.min(count, scores.size()));
+            scores.forEach(top::offer);
+            return top.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(long userId, long filmId, boolean liked) {
+        lock.writeLock().lock();
+        try {
+            if (liked) {
+                add(userId, filmId);
+            } else {
+                remove(filmsByUser, userId, filmId);
+                remove(usersByFilm, filmId, userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(long userId, long filmId) {
+        filmsByUser.computeIfAbsent(userId, id -> new SortedLongSet()).add(filmId);
+        usersByFilm.computeIfAbsent(filmId, id -> new SortedLongSet()).add(userId);
+    }
+
+    private static void remove(Map<Long, SortedLongSet> sets, long key, long value) {
+        final SortedLongSet set = sets.get(key);
+        if (set != null && set.remove(value) && set.isEmpty()) {
+            sets.remove(key);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+/**
+ * Receives the rows of a two-column id table, e.g. (user id, film id) of film_likes, without boxing.
+ */
+@FunctionalInterface
+public interface LongPairConsumer {
+    void accept(long first, long second);
+}
@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Limits of {@link LikeMatrix#recommendFilms}: how many nearest users are taken into account and how long
+ * the search may run.
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties("filmorate.recommendations")
+public class RecommendationProperties {
+    int neighbours = 50;
+    Duration timeBudget = Duration.ofMillis(50);
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable id-indexed snapshot of a small reference table (genres, MPA ratings). The model classes are
+ * mutable, so every lookup hands out a copy: a caller that changes a film's genre or rating must not change
+ * what every other request sees.
+ */
+public final class ReferenceDictionary<T> {
+
+    private final Object[] byId;
+    private final List<T> all;
+    private final String versionTag;
+    private final UnaryOperator<T> copier;
+
+    private ReferenceDictionary(Object[] byId, List<T> all, UnaryOperator<T> copier) {
+        this.byId = byId;
+        this.all = all;
+        this.copier = copier;
+        this.versionTag = Integer.toHexString(all.hashCode());
+    }
+
+    public static <T> ReferenceDictionary<T> of(List<T> items, Function<T, Integer> idGetter,
+                                                UnaryOperator<T> copier) {
+        final List<T> sorted = items.stream()
+                .sorted(Comparator.comparing(idGetter))
+                .toList();
+        final int maxId = sorted.isEmpty() ? 0 : idGetter.apply(sorted.getLast());
+        final Object[] byId = new Object[maxId + 1];
+        for (T item : sorted) {
+            byId[idGetter.apply(item)] = item;
+        }
+        return new ReferenceDictionary<>(byId, sorted, copier);
+    }
+
+    public T get(Integer id) {
+        final T item = lookup(id);
+        return item == null ? null : copier.apply(item);
+    }
+
+    public boolean contains(Integer id) {
+        return lookup(id) != null;
+    }
+
+    public List<T> getAll() {
+        return all.stream().map(copier).toList();
+    }
+
+    /**
+     * Derived from the content, so it stays the same across restarts and changes only when a refresh
+     * actually brings different data.
+     */
+    public String getVersionTag() {
+        return versionTag;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T lookup(Integer id) {
+        if (id == null || id < 0 || id >= byId.length) {
+            return null;
+        }
+        return (T) byId[id];
+    }
+}
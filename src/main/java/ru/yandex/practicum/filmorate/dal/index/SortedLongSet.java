@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive longs stored as a sorted array. Lookups are binary searches,
+ * intersections are merges (or probes into the larger set when sizes differ a lot).
+ * Not thread-safe, callers guard it with their own lock.
+ */
+public final class SortedLongSet {
+
+    private static final long[] EMPTY = new long[0];
+    private static final int PROBE_RATIO = 16;
+
+    private long[] values = EMPTY;
+    private int size;
+
+    public boolean add(long value) {
+        if (size == 0 || values[size - 1] < value) {
+            append(value);
+            return true;
+        }
+        int index = Arrays.binarySearch(values, 0, size, value);
+        if (index >= 0) {
+            return false;
+        }
+        index = -index - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = value;
+        size++;
+        return true;
+    }
+
+    public boolean remove(long value) {
+        final int index = Arrays.binarySearch(values, 0, size, value);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public boolean contains(long value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long get(int index) {
+        return values[index];
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    public static long[] intersect(SortedLongSet first, SortedLongSet second) {
+        if (first == null || second == null || first.isEmpty() || second.isEmpty()) {
+            return EMPTY;
+        }
+        final SortedLongSet small = first.size <= second.size ? first : second;
+        final SortedLongSet large = small == first ? second : first;
+        final long[] result = new long[small.size];
+        int count = 0;
+        if ((long) small.size * PROBE_RATIO < large.size) {
+            for (int i = 0; i < small.size; i++) {
+                if (large.contains(small.values[i])) {
+                    result[count++] = small.values[i];
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < small.size && j < large.size) {
+                final long a = small.values[i];
+                final long b = large.values[j];
+                if (a == b) {
+                    result[count++] = a;
+                    i++;
+                    j++;
+                } else if (a < b) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private void append(long value) {
+        ensureCapacity(size + 1);
+        values[size++] = value;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > values.length) {
+            values = Arrays.copyOf(values, Math.max(capacity, Math.max(4, values.length + (values.length >> 1))));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+/**
+ * Keeps the {@code k} ids with the highest scores (ties broken by the smaller id) in a bounded min-heap
+ * of primitive arrays, so selecting the top of n candidates costs O(n log k). Not thread-safe.
+ */
+public final class TopKSelector {
+
+    private final long[] ids;
+    private final long[] scores;
+    private int size;
+
+    public TopKSelector(int k) {
+        ids = new long[k];
+        scores = new long[k];
+    }
+
+    public void offer(long id, long score) {
+        if (ids.length == 0) {
+            return;
+        }
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (ranksAbove(id, score, ids[0], scores[0])) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Selected ids from the highest score to the lowest. Empties the selector.
+     */
+    public long[] toArray() {
+        final long[] result = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = ids[0];
+            ids[0] = ids[size - 1];
+            scores[0] = scores[size - 1];
+            size--;
+            siftDown(0);
+        }
+        return result;
+    }
+
+    private static boolean ranksAbove(long id, long score, long otherId, long otherScore) {
+        return score > otherScore || score == otherScore && id < otherId;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (!ranksAbove(ids[parent], scores[parent], ids[index], scores[index])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            final int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            final int right = left + 1;
+            int lowest = left;
+            if (right < size && ranksAbove(ids[left], scores[left], ids[right], scores[right])) {
+                lowest = right;
+            }
+            if (!ranksAbove(ids[index], scores[index], ids[lowest], scores[lowest])) {
+                return;
+            }
+            swap(index, lowest);
+            index = lowest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        final long id = ids[i];
+        final long score = scores[i];
+        ids[i] = ids[j];
+        scores[i] = scores[j];
+        ids[j] = id;
+        scores[j] = score;
+    }
+}
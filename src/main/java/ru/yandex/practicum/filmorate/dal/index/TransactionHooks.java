@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * In-memory indexes are updated eagerly, right after the SQL statement, so that the
+ * current transaction can read its own writes. If the surrounding transaction is later
+ * rolled back, the registered compensations restore the indexes in reverse order.
+ * Actions that must not be observed before the data is visible to others (version bumps)
+ * are deferred until commit.
+ */
+public final class TransactionHooks {
+
+    private static final Object COMPENSATIONS_KEY = new Object();
+
+    private TransactionHooks() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Deque<Runnable> compensations = (Deque<Runnable>) TransactionSynchronizationManager.getResource(COMPENSATIONS_KEY);
+        if (compensations == null) {
+            final Deque<Runnable> registered = new ArrayDeque<>();
+            TransactionSynchronizationManager.bindResource(COMPENSATIONS_KEY, registered);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(COMPENSATIONS_KEY);
+                    if (status == STATUS_ROLLED_BACK) {
+                        registered.forEach(Runnable::run);
+                    }
+                }
+            });
+            compensations = registered;
+        }
+        compensations.push(compensation);
+    }
+
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
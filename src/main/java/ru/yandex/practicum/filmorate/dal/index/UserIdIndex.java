@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.dal.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap of existing user ids, so that existence checks do not need a query. Users are never deleted,
+ * so a set bit is definite; a clear bit may still belong to a user created past this index (another
+ * instance, an id beyond the bitmap range) and is confirmed against the database by the caller.
+ * Bits are set only once the transaction that created or found the user commits, so a concurrent
+ * transaction never skips the check for a user it cannot see yet. Rebuilt from users on startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserIdIndex {
+
+    static final String SQL_FIND_ALL_USER_IDS = """
+            SELECT user_id
+            FROM users
+            """;
+
+    final JdbcTemplate jdbc;
+    final BitSet users = new BitSet();
+    final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            users.clear();
+            jdbc.query(SQL_FIND_ALL_USER_IDS, rs -> {
+                set(rs.getLong("user_id"), true);
+            });
+            log.info("Индекс пользователей загружен: {} пользователей", users.cardinality());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void userCreated(Long userId) {
+        TransactionHooks.afterCommit(() -> update(userId, true));
+    }
+
+    /**
+     * A user found in the database but missing from the index, e.g. created by another instance; it may
+     * also be an uncommitted user of the current transaction.
+     */
+    public void userConfirmed(Long userId) {
+        TransactionHooks.afterCommit(() -> update(userId, true));
+    }
+
+    /**
+     * {@code true} if the user certainly exists, {@code false} if it has to be confirmed by a query.
+     */
+    public boolean contains(Long userId) {
+        if (userId == null || userId < 0 || userId > Integer.MAX_VALUE) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return users.get(userId.intValue());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(long userId, boolean exists) {
+        lock.writeLock().lock();
+        try {
+            set(userId, exists);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void set(long userId, boolean exists) {
+        if (userId >= 0 && userId <= Integer.MAX_VALUE) {
+            users.set((int) userId, exists);
+        }
+    }
+}
@@ -5,22 +5,50 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dal.index.FilmCatalogIndex;
+import ru.yandex.practicum.filmorate.dal.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.dal.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.dal.index.FilmTrendingIndex;
+import ru.yandex.practicum.filmorate.dal.index.FilmVersions;
+import ru.yandex.practicum.filmorate.dal.index.IndexJournal;
+import ru.yandex.practicum.filmorate.dal.index.LikeMatrix;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.web.exception.DatabaseException;
 import ru.yandex.practicum.filmorate.web.exception.NotFoundException;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.SortedMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 @Repository
 @RequiredArgsConstructor
@@ -45,6 +73,16 @@ public class FilmRepository implements FilmStorage {
             JOIN mpa_rating AS r ON r.mpa_id = f.mpa_id
             """;
 
+    static final String SQL_FIND_FILMS_PAGE = """
+            SELECT f.*,
+                   r.mpa_name
+            FROM films AS f
+            JOIN mpa_rating AS r ON r.mpa_id = f.mpa_id
+            WHERE f.film_id > ?
+            ORDER BY f.film_id
+            LIMIT ?
+            """;
+
     static final String SQL_GET_FILM_BY_ID = """
             SELECT f.*,
                    r.mpa_name
@@ -54,33 +92,56 @@ public class FilmRepository implements FilmStorage {
             """;
 
     static final String SQL_ADD_FILM_LIKE = """
-            INSERT INTO film_likes (film_id, user_id)
-            VALUES (?, ?)
+            INSERT INTO film_likes (film_id, user_id, liked_at)
+            VALUES (?, ?, ?)
             """;
 
+    static final String SQL_ADD_FILM_LIKE_IF_ABSENT = """
+            INSERT INTO film_likes (film_id, user_id, liked_at)
+            SELECT f.film_id, u.user_id, CAST(? AS TIMESTAMP WITH TIME ZONE)
+            FROM films AS f, users AS u
+            WHERE f.film_id = ? AND u.user_id = ?
+              AND NOT EXISTS (SELECT 1 FROM film_likes AS l WHERE l.film_id = f.film_id AND l.user_id = u.user_id)
+            """;
+
+    // returns the time of the deleted like, which the trending windows need to uncount it
     static final String SQL_DELETE_FILM_LIKE = """
-            DELETE FROM film_likes
-            WHERE film_id = ? AND user_id = ?
+            SELECT liked_at
+            FROM OLD TABLE (DELETE FROM film_likes WHERE film_id = ? AND user_id = ?)
+            """;
+
+    static final String SQL_CHANGE_LIKES_COUNT = """
+            UPDATE films
+            SET likes_count = likes_count + ?
+            WHERE film_id = ?
             """;
 
-    static final String SQL_GET_MOST_LIKED_FILMS = """
+    static final String SQL_GET_FILMS_BY_IDS = """
             SELECT f.*,
                    r.mpa_name
             FROM films AS f
             JOIN mpa_rating AS r ON r.mpa_id = f.mpa_id
-            JOIN film_likes AS l ON l.film_id = f.film_id
-            GROUP BY f.film_id
-            ORDER BY COUNT(l.user_id) DESC
-            LIMIT ?
+            WHERE f.film_id IN (:ids)
             """;
 
     final JdbcTemplate jdbc;
+    final NamedParameterJdbcTemplate namedJdbc;
     final RowMapper<Film> mapper;
     final GenreRepository genreRepo;
     final MpaRatingRepository ratingRepo;
+    final FilmPopularityIndex popularity;
+    final FilmCatalogIndex catalog;
+    final FilmSearchIndex searchIndex;
+    final FilmVersions versions;
+    final LikeMatrix likeMatrix;
+    final IndexJournal journal;
+    final FilmTrendingIndex trending;
+    final Clock clock;
 
     @Override
+    @Transactional
     public Film create(Film film) {
+        check(film);
         final KeyHolder keyHolder = new GeneratedKeyHolder();
         try {
             jdbc.update(connection -> {
@@ -89,7 +150,7 @@ public class FilmRepository implements FilmStorage {
                 stmt.setString(2, film.getDescription());
                 stmt.setDate(3, Date.valueOf(film.getReleaseDate()));
                 stmt.setInt(4, film.getDuration());
-                stmt.setObject(5, ratingRepo.checkMpaRating(film), Types.INTEGER);
+                stmt.setObject(5, film.getMpa() == null ? null : film.getMpa().getId(), Types.INTEGER);
                 return stmt;
             }, keyHolder);
         } catch (DataIntegrityViolationException ex) {
@@ -98,35 +159,86 @@ public class FilmRepository implements FilmStorage {
 
         Long id = Objects.requireNonNull(keyHolder.getKey()).longValue();
         film.setId(id);
+        genreRepo.addGenresToFilm(film);
+        journal.filmsChanged(List.of(film));
+        index(film);
+        return film;
+    }
 
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            genreRepo.addGenresToFilm(film);
+    @Override
+    @Transactional
+    public List<Film> createAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
         }
-        return film;
+        films.forEach(this::check);
+        final KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.batchUpdate(connection -> connection.prepareStatement(SQL_CREATE_FILM, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement stmt, int i) throws SQLException {
+                        final Film film = films.get(i);
+                        stmt.setString(1, film.getName());
+                        stmt.setString(2, film.getDescription());
+                        stmt.setDate(3, Date.valueOf(film.getReleaseDate()));
+                        stmt.setInt(4, film.getDuration());
+                        stmt.setObject(5, film.getMpa() == null ? null : film.getMpa().getId(), Types.INTEGER);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+
+        final List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+        genreRepo.addGenresToFilms(films);
+        journal.filmsChanged(films);
+        films.forEach(this::index);
+        return films;
     }
 
     @Override
+    @Transactional
     public Film update(Film film) {
+        check(film);
         final int rowsUpdated = jdbc.update(SQL_UPDATE_FILM,
                 film.getName(),
                 film.getDescription(),
                 film.getReleaseDate(),
                 film.getDuration(),
-                ratingRepo.checkMpaRating(film),
+                film.getMpa() == null ? null : film.getMpa().getId(),
                 film.getId());
         if (rowsUpdated == 0) {
             throw new NotFoundException("Не удалось обновить данные. Фильм с ID " + film.getId() + " не найден");
         }
-        film.setGenres(genreRepo.getGenresByFilmId(film.getId()));
+        genreRepo.replaceGenresOfFilm(film);
+        journal.filmsChanged(List.of(film));
+        index(film);
         return film;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<Film> findAll() {
-        return jdbc.query(SQL_FIND_ALL_FILMS, mapper);
+        final List<Film> films = jdbc.query(SQL_FIND_ALL_FILMS, mapper);
+        genreRepo.loadGenresOfAllFilms(films);
+        return films;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<Film> findPage(Long afterId, int size) {
+        final List<Film> films = jdbc.query(SQL_FIND_FILMS_PAGE, mapper, afterId, size);
+        genreRepo.loadGenres(films);
+        return films;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Film getById(Long id) {
         final Film film;
         try {
@@ -139,17 +251,214 @@ public class FilmRepository implements FilmStorage {
     }
 
     @Override
+    public String getVersionTag(Long id) {
+        return catalog.contains(id) ? withReferenceData(versions.getTag(id)) : null;
+    }
+
+    @Override
+    @Transactional
     public void addLike(Long filmId, Long userId) {
-        jdbc.update(SQL_ADD_FILM_LIKE, filmId, userId);
+        final Instant likedAt = clock.instant();
+        jdbc.update(SQL_ADD_FILM_LIKE, filmId, userId, toTimestamp(likedAt));
+        jdbc.update(SQL_CHANGE_LIKES_COUNT, 1, filmId);
+        journal.likeChanged(filmId, userId, true);
+        popularity.likeAdded(filmId);
+        likeMatrix.likeAdded(filmId, userId);
+        trending.likeAdded(filmId, likedAt);
     }
 
     @Override
+    @Transactional
     public void deleteLike(Long filmId, Long userId) {
-        jdbc.update(SQL_DELETE_FILM_LIKE, filmId, userId);
+        final List<Instant> deleted = jdbc.query(SQL_DELETE_FILM_LIKE, (rs, rowNum) -> toInstant(rs), filmId, userId);
+        if (!deleted.isEmpty()) {
+            jdbc.update(SQL_CHANGE_LIKES_COUNT, -1, filmId);
+            journal.likeChanged(filmId, userId, false);
+            popularity.likeRemoved(filmId);
+            likeMatrix.likeRemoved(filmId, userId);
+            trending.likeRemoved(filmId, deleted.getFirst());
+        }
     }
 
     @Override
+    @Transactional
+    public int[] addLikes(List<FilmLike> likes) {
+        final Instant likedAt = clock.instant();
+        final int[] inserted = jdbc.batchUpdate(SQL_ADD_FILM_LIKE_IF_ABSENT, likes.stream()
+                .map(like -> new Object[]{toTimestamp(likedAt), like.getFilmId(), like.getUserId()})
+                .toList());
+        journal.likesChanged(likes, inserted, true);
+        final Map<Long, Integer> addedByFilm = new HashMap<>();
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] > 0) {
+                addedByFilm.merge(likes.get(i).getFilmId(), 1, Integer::sum);
+                popularity.likeAdded(likes.get(i).getFilmId());
+                likeMatrix.likeAdded(likes.get(i).getFilmId(), likes.get(i).getUserId());
+                trending.likeAdded(likes.get(i).getFilmId(), likedAt);
+            }
+        }
+        changeLikesCounts(addedByFilm);
+        return inserted;
+    }
+
+    @Override
+    @Transactional
+    public int[] deleteLikes(List<FilmLike> likes) {
+        final Instant[] likedAt = new Instant[likes.size()];
+        final int[] deleted = deleteLikes(likes, likedAt);
+        journal.likesChanged(likes, deleted, false);
+        final Map<Long, Integer> removedByFilm = new HashMap<>();
+        for (int i = 0; i < deleted.length; i++) {
+            if (deleted[i] > 0) {
+                removedByFilm.merge(likes.get(i).getFilmId(), -1, Integer::sum);
+                popularity.likeRemoved(likes.get(i).getFilmId());
+                likeMatrix.likeRemoved(likes.get(i).getFilmId(), likes.get(i).getUserId());
+                trending.likeRemoved(likes.get(i).getFilmId(), likedAt[i]);
+            }
+        }
+        changeLikesCounts(removedByFilm);
+        return deleted;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Collection<Film> getMostLiked(int count) {
-        return jdbc.query(SQL_GET_MOST_LIKED_FILMS, mapper, count);
+        return findByIdsInOrder(popularity.getTop(count));
+    }
+
+    @Override
+    public String getMostLikedVersionTag(int count) {
+        return withReferenceData(versions.getTag(popularity.getTop(count)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<Film> getMostLiked(int count, Integer genreId, Integer year, Integer mpaId) {
+        return findByIdsInOrder(popularity.getTop(count, catalog.match(genreId, year, mpaId)));
+    }
+
+    @Override
+    public String getMostLikedVersionTag(int count, Integer genreId, Integer year, Integer mpaId) {
+        return withReferenceData(versions.getTag(popularity.getTop(count, catalog.match(genreId, year, mpaId))));
+    }
+
+    @Override
+    public FilmFacets getPopularFacets(Integer genreId, Integer year, Integer mpaId) {
+        final BitSet films = catalog.match(genreId, year, mpaId);
+        popularity.retainRanked(films);
+        final FilmCatalogIndex.Facets facets = catalog.countFacets(films);
+        return new FilmFacets(films.cardinality(),
+                toBuckets(facets.genres(), genreRepo::getById),
+                toBuckets(facets.years(), Function.identity()),
+                toBuckets(facets.mpa(), ratingRepo::getById));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<Film> search(String query, int count) {
+        return findByIdsInOrder(LongStream.of(searchIndex.search(query, count)).boxed().toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<Film> getTrending(Duration window, int count) {
+        return findByIdsInOrder(trending.getTop(window, count));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<Film> getRecommendations(Long userId, int count) {
+        return findByIdsInOrder(LongStream.of(likeMatrix.recommendFilms(userId, count)).boxed().toList());
+    }
+
+    private List<Film> findByIdsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        final Map<Long, Film> filmsById = namedJdbc.query(SQL_GET_FILMS_BY_IDS, Map.of("ids", ids), mapper).stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        final List<Film> films = ids.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        genreRepo.loadGenres(films);
+        return films;
+    }
+
+    /**
+     * Validates the rating and genres against the reference dictionaries before anything is written
+     * and replaces them with the dictionary entries, so the returned film carries their names.
+     */
+    private void check(Film film) {
+        final Integer mpaId = ratingRepo.checkMpaRating(film);
+        film.setMpa(mpaId == null ? null : ratingRepo.getById(mpaId));
+        film.setGenres(genreRepo.checkGenres(film));
+    }
+
+    private void index(Film film) {
+        catalog.filmSaved(film.getId(), film.getReleaseDate(), film.getMpa() == null ? null : film.getMpa().getId(),
+                film.getGenres() == null ? List.of() : film.getGenres().stream()
+                        .map(Genre::getId)
+                        .filter(genreRepo::contains)
+                        .toList());
+        searchIndex.filmSaved(film.getId(), film.getName(), film.getDescription());
+        versions.changed(film.getId());
+    }
+
+    /**
+     * Film bodies embed genre and MPA names from the dictionaries, so a refresh that renames an entry
+     * must change every film tag as well.
+     */
+    private String withReferenceData(String versionTag) {
+        return versionTag + "-" + genreRepo.getVersionTag() + "-" + ratingRepo.getVersionTag();
+    }
+
+    private static <T> List<FilmFacets.Bucket<T>> toBuckets(SortedMap<Integer, Integer> counts,
+                                                            Function<Integer, T> values) {
+        return counts.entrySet().stream()
+                .map(entry -> new FilmFacets.Bucket<>(values.apply(entry.getKey()), entry.getValue()))
+                .toList();
+    }
+
+    /**
+     * Deletes the likes one primary key at a time through a single prepared statement, reading the time of
+     * every deleted like from the same statement. Each delete locks only its own row, so concurrent batches
+     * that share films or users never wait on pairs they do not delete. The time of every deleted like is
+     * stored in {@code likedAt}.
+     */
+    private int[] deleteLikes(List<FilmLike> likes, Instant[] likedAt) {
+        final int[] deleted = new int[likes.size()];
+        if (likes.isEmpty()) {
+            return deleted;
+        }
+        jdbc.execute(SQL_DELETE_FILM_LIKE, (PreparedStatement stmt) -> {
+            for (int i = 0; i < likes.size(); i++) {
+                stmt.setLong(1, likes.get(i).getFilmId());
+                stmt.setLong(2, likes.get(i).getUserId());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        deleted[i] = 1;
+                        likedAt[i] = toInstant(rs);
+                    }
+                }
+            }
+            return null;
+        });
+        return deleted;
+    }
+
+    private static OffsetDateTime toTimestamp(Instant time) {
+        return OffsetDateTime.ofInstant(time, ZoneOffset.UTC);
+    }
+
+    private static Instant toInstant(ResultSet rs) throws SQLException {
+        final OffsetDateTime likedAt = rs.getObject("liked_at", OffsetDateTime.class);
+        return likedAt == null ? null : likedAt.toInstant();
+    }
+
+    private void changeLikesCounts(Map<Long, Integer> deltaByFilm) {
+        jdbc.batchUpdate(SQL_CHANGE_LIKES_COUNT, deltaByFilm.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList());
     }
 }
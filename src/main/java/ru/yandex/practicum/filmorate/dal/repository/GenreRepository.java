@@ -1,12 +1,16 @@
 package ru.yandex.practicum.filmorate.dal.repository;
 
+import jakarta.annotation.PostConstruct;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
-import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dal.index.ReferenceDictionary;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.GenreStorage;
@@ -15,9 +19,14 @@ import ru.yandex.practicum.filmorate.web.exception.NotFoundException;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 @Repository
 @RequiredArgsConstructor
@@ -25,55 +34,169 @@ import java.util.Set;
 public class GenreRepository implements GenreStorage {
 
     static final String SQL_FIND_ALL_GENRES = "SELECT * FROM genres ORDER BY genre_id";
-    static final String SQL_GET_GENRE_BY_ID = "SELECT * FROM genres WHERE genre_id = ?";
     static final String SQL_ADD_GENRES_TO_FILM = """
             INSERT INTO film_genres (film_id, genre_id)
             VALUES (?, ?)
             """;
-    static final String SQL_GET_GENRES_BY_FILM_ID = """
-            SELECT *
-            FROM genres
-            WHERE genre_id
-            IN (SELECT genre_id FROM film_genres WHERE film_id = ?)
+    static final String SQL_DELETE_GENRE_OF_FILM = """
+            DELETE FROM film_genres
+            WHERE film_id = ? AND genre_id = ?
+            """;
+    static final String SQL_GET_GENRE_IDS_BY_FILM_ID = """
+            SELECT genre_id
+            FROM film_genres
+            WHERE film_id = ?
+            ORDER BY genre_id
+            """;
+    static final String SQL_GET_ALL_FILM_GENRES = """
+            SELECT film_id,
+                   genre_id
+            FROM film_genres
+            ORDER BY film_id, genre_id
+            """;
+    static final String SQL_GET_GENRES_BY_FILM_IDS = """
+            SELECT film_id,
+                   genre_id
+            FROM film_genres
+            WHERE film_id IN (:ids)
+            ORDER BY film_id, genre_id
             """;
 
     final JdbcTemplate jdbc;
+    final NamedParameterJdbcTemplate namedJdbc;
     final RowMapper<Genre> mapper;
+    volatile ReferenceDictionary<Genre> genres;
+
+    @PostConstruct
+    @Override
+    @Transactional(readOnly = true)
+    public void refresh() {
+        genres = ReferenceDictionary.of(jdbc.query(SQL_FIND_ALL_GENRES, mapper), Genre::getId,
+                genre -> new Genre(genre.getId(), genre.getName()));
+    }
 
     @Override
     public Collection<Genre> findAll() {
-        return jdbc.query(SQL_FIND_ALL_GENRES, mapper);
+        return genres.getAll();
+    }
+
+    @Override
+    public String getVersionTag() {
+        return genres.getVersionTag();
     }
 
     @Override
     public Genre getById(Integer genreId) {
-        try {
-            return jdbc.queryForObject(SQL_GET_GENRE_BY_ID, mapper, genreId);
-        } catch (EmptyResultDataAccessException e) {
+        final Genre genre = genres.get(genreId);
+        if (genre == null) {
             throw new NotFoundException("Жанр с id " + genreId + " не найден");
         }
+        return genre;
+    }
+
+    protected boolean contains(Integer genreId) {
+        return genres.contains(genreId);
+    }
+
+    /**
+     * The film's genres as dictionary entries ordered by id; unknown genre ids are rejected.
+     */
+    protected Set<Genre> checkGenres(Film film) {
+        if (film.getGenres() == null) {
+            return new LinkedHashSet<>();
+        }
+        final Set<Genre> checked = new TreeSet<>(Comparator.comparing(Genre::getId));
+        for (Genre genre : film.getGenres()) {
+            final Genre known = genre == null ? null : genres.get(genre.getId());
+            if (known == null) {
+                throw new DatabaseException("Неверный жанр для фильма. Жанр с id "
+                        + (genre == null ? null : genre.getId()) + " не существует.");
+            }
+            checked.add(known);
+        }
+        return new LinkedHashSet<>(checked);
     }
 
     protected void addGenresToFilm(Film film) {
-        List<Integer> genresId = getExistingGenresIds();
-        List<Object[]> batchArgs = new ArrayList<>();
+        if (!film.getGenres().isEmpty()) {
+            jdbc.batchUpdate(SQL_ADD_GENRES_TO_FILM, film.getGenres().stream()
+                    .map(genre -> new Object[]{film.getId(), genre.getId()})
+                    .toList());
+        }
+    }
+
+    /**
+     * Writes only the difference with the stored genres, so an update that keeps the genres costs one read.
+     */
+    protected void replaceGenresOfFilm(Film film) {
+        final Set<Integer> stored = new HashSet<>(jdbc.queryForList(SQL_GET_GENRE_IDS_BY_FILM_ID, Integer.class,
+                film.getId()));
+        final List<Object[]> added = new ArrayList<>();
         for (Genre genre : film.getGenres()) {
-            if (genresId.contains(genre.getId())) {
-                batchArgs.add(new Object[]{film.getId(), genre.getId()});
+            if (!stored.remove(genre.getId())) {
+                added.add(new Object[]{film.getId(), genre.getId()});
+            }
+        }
+        if (!stored.isEmpty()) {
+            jdbc.batchUpdate(SQL_DELETE_GENRE_OF_FILM, stored.stream()
+                    .map(genreId -> new Object[]{film.getId(), genreId})
+                    .toList());
+        }
+        if (!added.isEmpty()) {
+            jdbc.batchUpdate(SQL_ADD_GENRES_TO_FILM, added);
+        }
+    }
+
+    protected void addGenresToFilms(List<Film> films) {
+        final List<Object[]> batchArgs = new ArrayList<>();
+        for (Film film : films) {
+            if (film.getGenres() == null) {
+                continue;
+            }
+            for (Genre genre : film.getGenres()) {
+                if (genres.contains(genre.getId())) {
+                    batchArgs.add(new Object[]{film.getId(), genre.getId()});
+                }
             }
         }
         if (!batchArgs.isEmpty()) {
             jdbc.batchUpdate(SQL_ADD_GENRES_TO_FILM, batchArgs);
-        } else {
-            throw new DatabaseException("Жанры не найдены в базе данных");
         }
     }
 
     protected Set<Genre> getGenresByFilmId(Long filmId) {
-        return new HashSet<>(jdbc.query(SQL_GET_GENRES_BY_FILM_ID, mapper, filmId));
+        final Set<Genre> filmGenres = new LinkedHashSet<>();
+        jdbc.query(SQL_GET_GENRE_IDS_BY_FILM_ID, rs -> {
+            filmGenres.add(genres.get(rs.getInt("genre_id")));
+        }, filmId);
+        return filmGenres;
     }
 
-    private List<Integer> getExistingGenresIds() {
-        return jdbc.query(SQL_FIND_ALL_GENRES, (rs, rowNum) -> rs.getInt("genre_id"));
+    protected void loadGenres(Collection<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        final List<Long> ids = films.stream().map(Film::getId).toList();
+        final Map<Long, Set<Genre>> genresByFilmId = new HashMap<>();
+        namedJdbc.query(SQL_GET_GENRES_BY_FILM_IDS, Map.of("ids", ids), collectGenres(genresByFilmId));
+        setGenres(films, genresByFilmId);
+    }
+
+    protected void loadGenresOfAllFilms(Collection<Film> films) {
+        final Map<Long, Set<Genre>> genresByFilmId = new HashMap<>();
+        jdbc.query(SQL_GET_ALL_FILM_GENRES, collectGenres(genresByFilmId));
+        setGenres(films, genresByFilmId);
+    }
+
+    private RowCallbackHandler collectGenres(Map<Long, Set<Genre>> genresByFilmId) {
+        final ReferenceDictionary<Genre> dictionary = genres;
+        return rs -> genresByFilmId.computeIfAbsent(rs.getLong("film_id"), id -> new LinkedHashSet<>())
+                .add(dictionary.get(rs.getInt("genre_id")));
+    }
+
+    private void setGenres(Collection<Film> films, Map<Long, Set<Genre>> genresByFilmId) {
+        for (Film film : films) {
+            film.setGenres(genresByFilmId.getOrDefault(film.getId(), new LinkedHashSet<>()));
+        }
     }
 }
@@ -1,12 +1,14 @@
 package ru.yandex.practicum.filmorate.dal.repository;
 
+import jakarta.annotation.PostConstruct;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
-import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dal.index.ReferenceDictionary;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.MpaRating;
 import ru.yandex.practicum.filmorate.storage.MpaRatingStorage;
@@ -21,35 +23,45 @@ import java.util.Collection;
 public class MpaRatingRepository implements MpaRatingStorage {
 
     static final String SQL_FIND_ALL_MPA_RATINGS = "SELECT * FROM mpa_rating ORDER BY mpa_id";
-    static final String SQL_GET_MPA_RATING_BY_ID = "SELECT * FROM mpa_rating WHERE mpa_id = ?";
 
     final JdbcTemplate jdbc;
     final RowMapper<MpaRating> mapper;
+    volatile ReferenceDictionary<MpaRating> ratings;
+
+    @PostConstruct
+    @Override
+    @Transactional(readOnly = true)
+    public void refresh() {
+        ratings = ReferenceDictionary.of(jdbc.query(SQL_FIND_ALL_MPA_RATINGS, mapper), MpaRating::getId,
+                rating -> new MpaRating(rating.getId(), rating.getName()));
+    }
 
     @Override
     public Collection<MpaRating> findAll() {
-        return jdbc.query(SQL_FIND_ALL_MPA_RATINGS, mapper);
+        return ratings.getAll();
+    }
+
+    @Override
+    public String getVersionTag() {
+        return ratings.getVersionTag();
     }
 
     @Override
     public MpaRating getById(Integer mpaRatingId) {
-        try {
-            return jdbc.queryForObject(SQL_GET_MPA_RATING_BY_ID, mapper, mpaRatingId);
-        } catch (EmptyResultDataAccessException e) {
+        final MpaRating mpaRating = ratings.get(mpaRatingId);
+        if (mpaRating == null) {
             throw new NotFoundException("Рейтинг с таким ID не найден в базе данных");
         }
+        return mpaRating;
     }
 
     protected Integer checkMpaRating(Film film) {
         if (film.getMpa() == null) {
             return null;
-        } else {
-            try {
-                MpaRating mpaRating = getById(film.getMpa().getId());
-                return mpaRating.getId();
-            } catch (NotFoundException e) {
-                throw new DatabaseException("Неверный рейтинг для фильма. Указанный рейтинг не существует.");
-            }
         }
+        if (!ratings.contains(film.getMpa().getId())) {
+            throw new DatabaseException("Неверный рейтинг для фильма. Указанный рейтинг не существует.");
+        }
+        return film.getMpa().getId();
     }
 }
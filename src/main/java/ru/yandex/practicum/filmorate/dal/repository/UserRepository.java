@@ -5,11 +5,18 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.dal.index.FriendshipIndex;
+import ru.yandex.practicum.filmorate.dal.index.IndexJournal;
+import ru.yandex.practicum.filmorate.dal.index.UserIdIndex;
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 import ru.yandex.practicum.filmorate.web.exception.DatabaseException;
@@ -17,10 +24,15 @@ import ru.yandex.practicum.filmorate.web.exception.NotFoundException;
 
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 @Repository
 @RequiredArgsConstructor
@@ -43,15 +55,32 @@ public class UserRepository implements UserStorage {
         FROM users
         """;
 
+    static final String SQL_FIND_USERS_PAGE = """
+        SELECT *
+        FROM users
+        WHERE user_id > ?
+        ORDER BY user_id
+        LIMIT ?
+        """;
+
     static final String SQL_GET_USER_BY_ID = """
         SELECT *
         FROM users
         WHERE user_id = ?
         """;
 
-    static final String SQL_ADD_FRIEND = """
+    static final String SQL_COUNT_USERS_BY_ID = """
+        SELECT COUNT(*)
+        FROM users
+        WHERE user_id = ?
+        """;
+
+    static final String SQL_ADD_FRIEND_IF_ABSENT = """
         INSERT INTO user_friends (user_id, friend_id)
-        VALUES (?, ?)
+        SELECT u.user_id, f.user_id
+        FROM users AS u, users AS f
+        WHERE u.user_id = ? AND f.user_id = ?
+          AND NOT EXISTS (SELECT 1 FROM user_friends AS uf WHERE uf.user_id = u.user_id AND uf.friend_id = f.user_id)
         """;
 
     static final String SQL_DELETE_FRIEND = """
@@ -66,16 +95,19 @@ public class UserRepository implements UserStorage {
         WHERE uf.user_id = ?;
         """;
 
-    static final String SQL_GET_COMMON_FRIENDS = """
-        SELECT u.*
-        FROM users AS u
-        JOIN user_friends AS uf1 ON u.user_id = uf1.friend_id
-        JOIN user_friends AS uf2 ON u.user_id = uf2.friend_id
-        WHERE uf1.user_id = ? AND uf2.user_id = ?;
+    static final String SQL_GET_USERS_BY_IDS = """
+        SELECT *
+        FROM users
+        WHERE user_id IN (:ids)
+        ORDER BY user_id
         """;
 
     final JdbcTemplate jdbc;
+    final NamedParameterJdbcTemplate namedJdbc;
     final RowMapper<User> mapper;
+    final FriendshipIndex friendshipIndex;
+    final UserIdIndex userIdIndex;
+    final IndexJournal journal;
 
     @Override
     public User create(User user) {
@@ -92,12 +124,45 @@ public class UserRepository implements UserStorage {
 
             Long id = Objects.requireNonNull(keyHolder.getKey()).longValue();
             user.setId(id);
+            userIdIndex.userCreated(id);
             return user;
         } catch (DataIntegrityViolationException ex) {
             throw new DatabaseException("Пользователь с таким email или login уже существует");
         }
     }
 
+    @Override
+    @Transactional
+    public List<User> createAll(List<User> users) {
+        if (users.isEmpty()) {
+            return users;
+        }
+        final KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.batchUpdate(connection -> connection.prepareStatement(SQL_CREATE_USER, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement stmt, int i) throws SQLException {
+                        final User user = users.get(i);
+                        stmt.setString(1, user.getEmail());
+                        stmt.setString(2, user.getLogin());
+                        stmt.setString(3, user.getName());
+                        stmt.setDate(4, Date.valueOf(user.getBirthday()));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return users.size();
+                    }
+                }, keyHolder);
+
+        final List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            userIdIndex.userCreated(users.get(i).getId());
+        }
+        return users;
+    }
+
     @Override
     public User update(User user) {
         int updatedRows = jdbc.update(SQL_UPDATE_USER,
@@ -113,49 +178,119 @@ public class UserRepository implements UserStorage {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<User> findAll() {
         return jdbc.query(SQL_FIND_ALL_USERS, mapper);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Collection<User> findPage(Long afterId, int size) {
+        return jdbc.query(SQL_FIND_USERS_PAGE, mapper, afterId, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public User getById(Long id) {
-        final User user = jdbc.queryForObject(SQL_GET_USER_BY_ID, mapper, id);
-        if (user == null) {
+        try {
+            return jdbc.queryForObject(SQL_GET_USER_BY_ID, mapper, id);
+        } catch (EmptyResultDataAccessException e) {
             throw new NotFoundException("Пользователь с id " + id + " не найден");
         }
-        return user;
     }
 
     @Override
+    @Transactional
     public void addFriend(Long userId, Long friendId) {
         checkUserExistsById(userId);
         checkUserExistsById(friendId);
-        jdbc.update(SQL_ADD_FRIEND, userId, friendId);
+        if (jdbc.update(SQL_ADD_FRIEND_IF_ABSENT, userId, friendId) > 0) {
+            journal.friendshipChanged(userId, friendId, true);
+            friendshipIndex.friendAdded(userId, friendId);
+        }
     }
 
     @Override
+    @Transactional
     public void deleteFriend(Long userId, Long friendId) {
         checkUserExistsById(userId);
         checkUserExistsById(friendId);
-        jdbc.update(SQL_DELETE_FRIEND, userId, friendId);
+        if (jdbc.update(SQL_DELETE_FRIEND, userId, friendId) > 0) {
+            journal.friendshipChanged(userId, friendId, false);
+            friendshipIndex.friendRemoved(userId, friendId);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void addFriends(Long userId, Collection<Long> friendIds) {
+        checkUserExistsById(userId);
+        friendIds.forEach(this::checkUserExistsById);
+        addFriends(friendIds.stream()
+                .map(friendId -> new Friendship(userId, friendId))
+                .toList());
+    }
+
+    @Override
+    @Transactional
+    public int[] addFriends(List<Friendship> friendships) {
+        final int[] inserted = jdbc.batchUpdate(SQL_ADD_FRIEND_IF_ABSENT, friendships.stream()
+                .map(friendship -> new Object[]{friendship.getUserId(), friendship.getFriendId()})
+                .toList());
+        journal.friendshipsAdded(friendships, inserted);
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] > 0) {
+                friendshipIndex.friendAdded(friendships.get(i).getUserId(), friendships.get(i).getFriendId());
+            }
+        }
+        return inserted;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> getFriends(Long userId) {
         checkUserExistsById(userId);
         return jdbc.query(SQL_GET_FRIENDS_BY_USER_ID, mapper, userId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Collection<User> getCommonFriends(Long userId, Long friendId) {
-        return jdbc.query(SQL_GET_COMMON_FRIENDS, mapper, userId, friendId);
+        final long[] commonFriendIds = friendshipIndex.getCommonFriends(userId, friendId);
+        if (commonFriendIds.length == 0) {
+            return List.of();
+        }
+        return namedJdbc.query(SQL_GET_USERS_BY_IDS, Map.of("ids", LongStream.of(commonFriendIds).boxed().toList()), mapper);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Collection<User> getFriendSuggestions(Long userId, int count) {
+        checkUserExistsById(userId);
+        final long[] suggestedIds = friendshipIndex.suggestFriends(userId, count);
+        if (suggestedIds.length == 0) {
+            return List.of();
+        }
+        final Map<Long, User> usersById = namedJdbc.query(SQL_GET_USERS_BY_IDS,
+                        Map.of("ids", LongStream.of(suggestedIds).boxed().toList()), mapper).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return LongStream.of(suggestedIds)
+                .mapToObj(usersById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Answered by {@link UserIdIndex} without a query for every user it knows; only unknown ids are looked up.
+     */
     private void checkUserExistsById(Long userId) {
-        try {
-            jdbc.queryForObject(SQL_GET_USER_BY_ID, mapper, userId);
-        } catch (EmptyResultDataAccessException e) {
+        if (userIdIndex.contains(userId)) {
+            return;
+        }
+        final Integer count = jdbc.queryForObject(SQL_COUNT_USERS_BY_ID, Integer.class, userId);
+        if (count == null || count == 0) {
             throw new NotFoundException("Пользователь с id " + userId + " не найден");
         }
+        userIdIndex.userConfirmed(userId);
     }
 }
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+
+/**
+ * Times every call to FilmStorage, UserStorage, GenreStorage and MpaRatingStorage implementations
+ * and records how many rows the call returned or wrote.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class StorageMetricsAspect {
+
+    static final String STORAGE_TIMER = "filmorate.storage";
+    static final String STORAGE_ROWS = "filmorate.storage.rows";
+
+    final MeterRegistry registry;
+
+    @Around("execution(* ru.yandex.practicum.filmorate.storage.*Storage.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        final String storage = AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName();
+        final String method = joinPoint.getSignature().getName();
+        final Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            final Object result = joinPoint.proceed();
+            final int rows = countRows(result);
+            if (rows >= 0) {
+                DistributionSummary.builder(STORAGE_ROWS)
+                        .tag("storage", storage)
+                        .tag("method", method)
+                        .register(registry)
+                        .record(rows);
+            }
+            return result;
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(STORAGE_TIMER)
+                    .tag("storage", storage)
+                    .tag("method", method)
+                    .tag("exception", exception)
+                    .register(registry));
+        }
+    }
+
+    private int countRows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof int[] written) {
+            return written.length;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+@Getter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FilmFacets {
+    final int total;
+    final List<Bucket<Genre>> genres;
+    final List<Bucket<Integer>> years;
+    final List<Bucket<MpaRating>> mpa;
+
+    @RequiredArgsConstructor
+    @Getter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Bucket<T> {
+        final T value;
+        final int count;
+    }
+}
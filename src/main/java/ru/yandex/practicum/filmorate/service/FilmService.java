@@ -3,17 +3,36 @@ package ru.yandex.practicum.filmorate.service;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.config.TrendingConfig;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MpaRatingStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.web.exception.ConditionsNotMetException;
+import ru.yandex.practicum.filmorate.web.exception.NotFoundException;
 
+import java.time.Duration;
 import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class FilmService {
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+
     final FilmStorage filmStorage;
+    final UserStorage userStorage;
+    final GenreStorage genreStorage;
+    final MpaRatingStorage mpaRatingStorage;
+    final Optional<LikeWriteBehindQueue> likeQueue;
+    final TrendingConfig.TrendingProperties trendingProperties;
 
     public Film create(Film film) {
         return filmStorage.create(film);
@@ -27,19 +46,125 @@ public class FilmService {
         return filmStorage.findAll();
     }
 
+    public Collection<Film> findPage(Long afterId, Integer size) {
+        final int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new ConditionsNotMetException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return filmStorage.findPage(afterId == null ? 0L : afterId, pageSize);
+    }
+
+    public void forEach(Consumer<Film> action) {
+        long afterId = 0L;
+        Collection<Film> page;
+        do {
+            page = filmStorage.findPage(afterId, MAX_PAGE_SIZE);
+            for (Film film : page) {
+                action.accept(film);
+                afterId = film.getId();
+            }
+        } while (page.size() == MAX_PAGE_SIZE);
+    }
+
     public Film getById(Long id) {
         return filmStorage.getById(id);
     }
 
+    public String getVersionTag(Long id) {
+        final String versionTag = filmStorage.getVersionTag(id);
+        if (versionTag == null) {
+            throw new NotFoundException("Фильм с ID " + id + " не найден");
+        }
+        return versionTag;
+    }
+
     public void addLike(Long filmId, Long userId) {
-        filmStorage.addLike(filmId, userId);
+        likeQueue.ifPresentOrElse(queue -> queue.like(filmId, userId), () -> filmStorage.addLike(filmId, userId));
     }
 
     public void deleteLike(Long filmId, Long userId) {
-        filmStorage.deleteLike(filmId, userId);
+        likeQueue.ifPresentOrElse(queue -> queue.unlike(filmId, userId), () -> filmStorage.deleteLike(filmId, userId));
     }
 
     public Collection<Film> getMostLiked(int count) {
+        checkCount(count);
         return filmStorage.getMostLiked(count);
     }
+
+    public String getMostLikedVersionTag(int count) {
+        checkCount(count);
+        return filmStorage.getMostLikedVersionTag(count);
+    }
+
+    public Collection<Film> getMostLiked(int count, Integer genreId, Integer year, Integer mpaId) {
+        if (genreId == null && year == null && mpaId == null) {
+            return getMostLiked(count);
+        }
+        checkCount(count);
+        checkFilter(genreId, mpaId);
+        return filmStorage.getMostLiked(count, genreId, year, mpaId);
+    }
+
+    public String getMostLikedVersionTag(int count, Integer genreId, Integer year, Integer mpaId) {
+        if (genreId == null && year == null && mpaId == null) {
+            return getMostLikedVersionTag(count);
+        }
+        checkCount(count);
+        checkFilter(genreId, mpaId);
+        return filmStorage.getMostLikedVersionTag(count, genreId, year, mpaId);
+    }
+
+    public FilmFacets getPopularFacets(Integer genreId, Integer year, Integer mpaId) {
+        checkFilter(genreId, mpaId);
+        return filmStorage.getPopularFacets(genreId, year, mpaId);
+    }
+
+    public Collection<Film> search(String query, int count) {
+        if (query == null || query.isBlank()) {
+            throw new ConditionsNotMetException("Поисковый запрос не может быть пустым");
+        }
+        checkCount(count);
+        return filmStorage.search(query, count);
+    }
+
+    /**
+     * Films with the most likes within {@code window}, given as e.g. {@code 24h}; only the windows of
+     * {@code filmorate.trending.windows} are kept.
+     */
+    public Collection<Film> getTrending(String window, int count) {
+        final Duration duration;
+        try {
+            duration = DurationStyle.detectAndParse(window);
+        } catch (IllegalArgumentException e) {
+            throw new ConditionsNotMetException("Некорректное окно: " + window);
+        }
+        if (!trendingProperties.getWindows().contains(duration)) {
+            throw new ConditionsNotMetException("Окно должно быть одним из " + trendingProperties.getWindows());
+        }
+        checkCount(count);
+        return filmStorage.getTrending(duration, count);
+    }
+
+    public Collection<Film> getRecommendations(Long userId, int count) {
+        if (count <= 0 || count > MAX_PAGE_SIZE) {
+            throw new ConditionsNotMetException("Количество рекомендаций должно быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        userStorage.getById(userId);
+        return filmStorage.getRecommendations(userId, count);
+    }
+
+    private void checkCount(int count) {
+        if (count <= 0 || count > MAX_PAGE_SIZE) {
+            throw new ConditionsNotMetException("Количество фильмов должно быть от 1 до " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private void checkFilter(Integer genreId, Integer mpaId) {
+        if (genreId != null) {
+            genreStorage.getById(genreId);
+        }
+        if (mpaId != null) {
+            mpaRatingStorage.getById(mpaId);
+        }
+    }
 }
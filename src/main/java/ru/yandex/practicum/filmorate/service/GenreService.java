@@ -22,4 +22,12 @@ public class GenreService {
     public Genre getById(Integer genreId) {
         return genreStorage.getById(genreId);
     }
+
+    public String getVersionTag() {
+        return genreStorage.getVersionTag();
+    }
+
+    public void refresh() {
+        genreStorage.refresh();
+    }
 }
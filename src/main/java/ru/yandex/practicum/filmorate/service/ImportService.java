@@ -0,0 +1,212 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.MpaRatingStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.web.exception.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ImportService {
+    static final int CHUNK_SIZE = 1000;
+
+    final FilmStorage filmStorage;
+    final UserStorage userStorage;
+    final GenreStorage genreStorage;
+    final MpaRatingStorage mpaRatingStorage;
+    final Validator validator;
+    final ObjectMapper objectMapper;
+
+    public ImportResult importFilms(Iterator<JsonNode> rows) {
+        return importRows(rows, Film.class, this::checkFilm, films -> {
+            filmStorage.createAll(films);
+            return accepted(films.size());
+        }, null);
+    }
+
+    public ImportResult importUsers(Iterator<JsonNode> rows) {
+        return importRows(rows, User.class, user -> null, users -> {
+            userStorage.createAll(users);
+            return accepted(users.size());
+        }, null);
+    }
+
+    public ImportResult importLikes(Iterator<JsonNode> rows) {
+        return importRows(rows, FilmLike.class, like -> null, filmStorage::addLikes,
+                "Фильм или пользователь не найден, либо лайк уже поставлен");
+    }
+
+    public ImportResult importFriendships(Iterator<JsonNode> rows) {
+        return importRows(rows, Friendship.class, this::checkFriendship, userStorage::addFriends,
+                "Пользователь или друг не найден, либо они уже друзья");
+    }
+
+    private <T> ImportResult importRows(Iterator<JsonNode> rows,
+                                        Class<T> type,
+                                        Function<T, String> check,
+                                        Function<List<T>, int[]> writer,
+                                        String rejectedMessage) {
+        final List<ImportResult.RowError> errors = new ArrayList<>();
+        final List<T> chunk = new ArrayList<>(CHUNK_SIZE);
+        final List<Integer> chunkRows = new ArrayList<>(CHUNK_SIZE);
+        int received = 0;
+        int imported = 0;
+
+        while (true) {
+            final JsonNode node;
+            try {
+                if (!rows.hasNext()) {
+                    break;
+                }
+                node = rows.next();
+            } catch (RuntimeException e) {
+                errors.add(new ImportResult.RowError(received, "Некорректный JSON, импорт остановлен: " + e.getMessage()));
+                break;
+            }
+            final int row = received++;
+            final T item;
+            try {
+                item = objectMapper.treeToValue(node, type);
+            } catch (Exception e) {
+                errors.add(new ImportResult.RowError(row, "Некорректный формат записи: " + e.getMessage()));
+                continue;
+            }
+            final String error = validate(item, check);
+            if (error != null) {
+                errors.add(new ImportResult.RowError(row, error));
+                continue;
+            }
+            chunk.add(item);
+            chunkRows.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                imported += flush(chunk, chunkRows, writer, rejectedMessage, errors);
+            }
+        }
+        imported += flush(chunk, chunkRows, writer, rejectedMessage, errors);
+
+        log.info("Импорт {}: получено {}, записано {}, ошибок {}", type.getSimpleName(), received, imported,
+                errors.size());
+        return new ImportResult(received, imported, errors);
+    }
+
+    private <T> int flush(List<T> chunk,
+                          List<Integer> chunkRows,
+                          Function<List<T>, int[]> writer,
+                          String rejectedMessage,
+                          List<ImportResult.RowError> errors) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        final int[] written = write(chunk, chunkRows, writer, errors);
+        int imported = 0;
+        for (int i = 0; i < written.length; i++) {
+            if (written[i] > 0) {
+                imported++;
+            } else if (written[i] == 0) {
+                errors.add(new ImportResult.RowError(chunkRows.get(i), rejectedMessage));
+            }
+        }
+        chunk.clear();
+        chunkRows.clear();
+        return imported;
+    }
+
+    /**
+     * Writes the chunk as one batch. If the database rejects the batch, the chunk is rolled back and retried
+     * row by row, so the valid rows are still written and every rejected row gets its own error.
+     * Rows that fail on retry are marked with -1 in the result.
+     */
+    private <T> int[] write(List<T> chunk,
+                            List<Integer> chunkRows,
+                            Function<List<T>, int[]> writer,
+                            List<ImportResult.RowError> errors) {
+        try {
+            return writer.apply(chunk);
+        } catch (DataAccessException e) {
+            log.warn("Батч строк {}-{} отвергнут базой, повтор по одной записи: {}", chunkRows.get(0),
+                    chunkRows.get(chunkRows.size() - 1), e.getMostSpecificCause().getMessage());
+        }
+        final int[] written = new int[chunk.size()];
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                written[i] = writer.apply(List.of(chunk.get(i)))[0];
+            } catch (DataAccessException e) {
+                written[i] = -1;
+                errors.add(new ImportResult.RowError(chunkRows.get(i),
+                        "Ошибка записи в базу: " + e.getMostSpecificCause().getMessage()));
+            }
+        }
+        return written;
+    }
+
+    private <T> String validate(T item, Function<T, String> check) {
+        if (item == null) {
+            return "Пустая запись";
+        }
+        final var violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(this::formatViolation)
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        return check.apply(item);
+    }
+
+    private String formatViolation(ConstraintViolation<?> violation) {
+        return String.format("%s: %s", violation.getPropertyPath(), violation.getMessage());
+    }
+
+    private String checkFilm(Film film) {
+        try {
+            mpaRatingStorage.getById(film.getMpa().getId());
+            if (film.getGenres() != null) {
+                for (Genre genre : film.getGenres()) {
+                    genreStorage.getById(genre.getId());
+                }
+            }
+        } catch (NotFoundException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    private String checkFriendship(Friendship friendship) {
+        if (friendship.getUserId().equals(friendship.getFriendId())) {
+            return "Нельзя добавить самого себя в друзья";
+        }
+        return null;
+    }
+
+    private static int[] accepted(int size) {
+        final int[] written = new int[size];
+        Arrays.fill(written, 1);
+        return written;
+    }
+}
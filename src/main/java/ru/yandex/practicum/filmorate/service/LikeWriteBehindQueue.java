@@ -0,0 +1,273 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.web.exception.ServiceOverloadedException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for likes. Requests only record the latest intent per (film, user) pair and return;
+ * a background worker writes the accumulated intents to film_likes in JDBC batches. Repeated requests for
+ * the same pair are coalesced, so a like followed by an unlike reaches the database as a single DELETE.
+ * When the buffer is full, callers wait up to {@code offerTimeout} and then get a 503.
+ * After a failed flush the batch is kept and the worker backs off exponentially from {@code flushInterval}
+ * up to {@link #MAX_RETRY_DELAY}; repeated failures are logged on the 1st, 2nd, 4th, 8th, ... attempt only.
+ */
+@Slf4j
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class LikeWriteBehindQueue implements AutoCloseable {
+
+    static final String QUEUE_SIZE = "filmorate.likes.queue.size";
+    static final String FLUSH_TIMER = "filmorate.likes.flush";
+    static final String FLUSH_ROWS = "filmorate.likes.flush.rows";
+    static final String REJECTED = "filmorate.likes.rejected";
+    static final Duration MIN_RETRY_DELAY = Duration.ofMillis(100);
+    static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(30);
+
+    final FilmStorage filmStorage;
+    final int capacity;
+    final int batchSize;
+    final Duration flushInterval;
+    final Duration offerTimeout;
+
+    final Lock lock = new ReentrantLock();
+    final Condition notFull = lock.newCondition();
+    final Condition batchReady = lock.newCondition();
+    final Condition closing = lock.newCondition();
+    final Lock flushLock = new ReentrantLock();
+    final Thread worker;
+
+    final Timer flushTimer;
+    final DistributionSummary writtenRows;
+    final DistributionSummary skippedRows;
+    final Counter rejected;
+
+    Map<FilmLike, Boolean> pending = new LinkedHashMap<>();
+    boolean closed;
+    int failedFlushes;
+
+    public LikeWriteBehindQueue(FilmStorage filmStorage, int capacity, int batchSize, Duration flushInterval,
+                                Duration offerTimeout, MeterRegistry registry) {
+        this.filmStorage = filmStorage;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+
+        Gauge.builder(QUEUE_SIZE, this, LikeWriteBehindQueue::size).register(registry);
+        this.flushTimer = Timer.builder(FLUSH_TIMER).register(registry);
+        this.writtenRows = DistributionSummary.builder(FLUSH_ROWS).tag("result", "written").register(registry);
+        this.skippedRows = DistributionSummary.builder(FLUSH_ROWS).tag("result", "skipped").register(registry);
+        this.rejected = Counter.builder(REJECTED).register(registry);
+
+        this.worker = Thread.ofPlatform().name("likes-write-behind").daemon().start(this::runWorker);
+    }
+
+    public void like(Long filmId, Long userId) {
+        enqueue(new FilmLike(filmId, userId), true);
+    }
+
+    public void unlike(Long filmId, Long userId) {
+        enqueue(new FilmLike(filmId, userId), false);
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes everything accepted so far. Called by the worker and on shutdown.
+     *
+     * @return {@code false} if the batch could not be written and was put back into the buffer
+     */
+    public boolean flush() {
+        flushLock.lock();
+        try {
+            final Map<FilmLike, Boolean> batch = drain();
+            if (batch.isEmpty()) {
+                return true;
+            }
+            final Timer.Sample sample = Timer.start();
+            try {
+                write(batch);
+                if (failedFlushes > 0) {
+                    log.info("Запись лайков восстановлена после {} неудачных попыток", failedFlushes);
+                    failedFlushes = 0;
+                }
+                return true;
+            } catch (RuntimeException e) {
+                failedFlushes++;
+                logFailure(batch.size(), e);
+                restore(batch);
+                return false;
+            } finally {
+                sample.stop(flushTimer);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            batchReady.signalAll();
+            notFull.signalAll();
+            closing.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        worker.join();
+        flush();
+        log.info("Очередь лайков остановлена, несохранённых изменений: {}", size());
+    }
+
+    private void enqueue(FilmLike like, boolean liked) {
+        lock.lock();
+        try {
+            long nanos = offerTimeout.toNanos();
+            while (!closed && pending.size() >= capacity && !pending.containsKey(like)) {
+                if (nanos <= 0) {
+                    rejected.increment();
+                    throw new ServiceOverloadedException("Очередь лайков переполнена, повторите запрос позже");
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            if (closed) {
+                throw new ServiceOverloadedException("Приём лайков остановлен");
+            }
+            pending.put(like, liked);
+            if (pending.size() >= batchSize) {
+                batchReady.signal();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Ожидание места в очереди лайков прервано");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runWorker() {
+        int failures = 0;
+        while (failures == 0 ? awaitBatch() : awaitRetry(retryDelay(failures))) {
+            failures = flush() ? 0 : failures + 1;
+        }
+    }
+
+    private Duration retryDelay(int failures) {
+        final Duration base = flushInterval.compareTo(MIN_RETRY_DELAY) < 0 ? MIN_RETRY_DELAY : flushInterval;
+        final Duration max = base.compareTo(MAX_RETRY_DELAY) < 0 ? MAX_RETRY_DELAY : base;
+        final Duration delay = base.multipliedBy(1L << Math.min(failures - 1, 20));
+        return delay.compareTo(max) < 0 ? delay : max;
+    }
+
+    private boolean awaitRetry(Duration delay) {
+        lock.lock();
+        try {
+            long nanos = delay.toNanos();
+            while (!closed && nanos > 0) {
+                nanos = closing.awaitNanos(nanos);
+            }
+            return !closed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void logFailure(int size, RuntimeException e) {
+        if (failedFlushes == 1) {
+            log.error("Не удалось записать {} лайков, запись будет повторена", size, e);
+        } else if (Integer.bitCount(failedFlushes) == 1) {
+            log.error("Не удалось записать {} лайков, неудачных попыток подряд: {}: {}", size, failedFlushes,
+                    e.toString());
+        }
+    }
+
+    private boolean awaitBatch() {
+        lock.lock();
+        try {
+            long nanos = flushInterval.toNanos();
+            while (!closed && pending.size() < batchSize && nanos > 0) {
+                nanos = batchReady.awaitNanos(nanos);
+            }
+            return !closed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Map<FilmLike, Boolean> drain() {
+        lock.lock();
+        try {
+            final Map<FilmLike, Boolean> batch = pending;
+            pending = new LinkedHashMap<>();
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void restore(Map<FilmLike, Boolean> batch) {
+        lock.lock();
+        try {
+            final Map<FilmLike, Boolean> merged = new LinkedHashMap<>(batch);
+            merged.putAll(pending);
+            pending = merged;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(Map<FilmLike, Boolean> batch) {
+        final List<FilmLike> likes = new ArrayList<>();
+        final List<FilmLike> unlikes = new ArrayList<>();
+        batch.forEach((like, liked) -> (liked ? likes : unlikes).add(like));
+
+        for (int from = 0; from < likes.size(); from += batchSize) {
+            record(filmStorage.addLikes(likes.subList(from, Math.min(likes.size(), from + batchSize))));
+        }
+        for (int from = 0; from < unlikes.size(); from += batchSize) {
+            record(filmStorage.deleteLikes(unlikes.subList(from, Math.min(unlikes.size(), from + batchSize))));
+        }
+    }
+
+    private void record(int[] rows) {
+        int written = 0;
+        for (int row : rows) {
+            written += row > 0 ? 1 : 0;
+        }
+        writtenRows.record(written);
+        skippedRows.record(rows.length - written);
+    }
+}
@@ -22,4 +22,12 @@ public class MpaRatingService {
     public MpaRating getById(Integer mpaRatingId) {
         return mpaRatingStorage.getById(mpaRatingId);
     }
+
+    public String getVersionTag() {
+        return mpaRatingStorage.getVersionTag();
+    }
+
+    public void refresh() {
+        mpaRatingStorage.refresh();
+    }
 }
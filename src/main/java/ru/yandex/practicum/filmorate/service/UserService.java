@@ -9,11 +9,18 @@ import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
 import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class UserService {
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_FRIENDS_BATCH_SIZE = 1000;
+
     final UserStorage userStorage;
 
     public User create(User user) {
@@ -28,6 +35,26 @@ public class UserService {
         return userStorage.findAll();
     }
 
+    public Collection<User> findPage(Long afterId, Integer size) {
+        final int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new ConditionsNotMetException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return userStorage.findPage(afterId == null ? 0L : afterId, pageSize);
+    }
+
+    public void forEach(Consumer<User> action) {
+        long afterId = 0L;
+        Collection<User> page;
+        do {
+            page = userStorage.findPage(afterId, MAX_PAGE_SIZE);
+            for (User user : page) {
+                action.accept(user);
+                afterId = user.getId();
+            }
+        } while (page.size() == MAX_PAGE_SIZE);
+    }
+
     public User getById(Long id) {
         return userStorage.getById(id);
     }
@@ -39,6 +66,19 @@ public class UserService {
         userStorage.addFriend(userId, friendId);
     }
 
+    public void addFriends(Long userId, Collection<Long> friendIds) {
+        if (friendIds.isEmpty() || friendIds.size() > MAX_FRIENDS_BATCH_SIZE) {
+            throw new ConditionsNotMetException("Количество друзей в запросе должно быть от 1 до " + MAX_FRIENDS_BATCH_SIZE);
+        }
+        if (friendIds.stream().anyMatch(Objects::isNull)) {
+            throw new ConditionsNotMetException("ID друга не может быть пустым");
+        }
+        if (friendIds.contains(userId)) {
+            throw new ConditionsNotMetException("Нельзя добавить самого себя в друзья");
+        }
+        userStorage.addFriends(userId, new LinkedHashSet<>(friendIds));
+    }
+
     public void deleteFriend(Long userId, Long friendId) {
         if (userId.equals(friendId)) {
             throw new ConditionsNotMetException("ID пользователя и друга совпадают");
@@ -56,4 +96,11 @@ public class UserService {
         }
         return userStorage.getCommonFriends(userId, friendId);
     }
+
+    public Collection<User> getFriendSuggestions(Long userId, int count) {
+        if (count <= 0 || count > MAX_PAGE_SIZE) {
+            throw new ConditionsNotMetException("Количество рекомендаций должно быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        return userStorage.getFriendSuggestions(userId, count);
+    }
 }
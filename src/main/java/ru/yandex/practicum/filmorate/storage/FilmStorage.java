@@ -1,21 +1,52 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 
+import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 
 public interface FilmStorage {
     Film create(Film film);
 
+    List<Film> createAll(List<Film> films);
+
     Film update(Film film);
 
     Collection<Film> findAll();
 
+    Collection<Film> findPage(Long afterId, int size);
+
     Film getById(Long id);
 
+    /**
+     * Tag of the current version of the film, or {@code null} if the film is unknown.
+     */
+    String getVersionTag(Long id);
+
     void addLike(Long filmId, Long userId);
 
     void deleteLike(Long filmId, Long userId);
 
+    int[] addLikes(List<FilmLike> likes);
+
+    int[] deleteLikes(List<FilmLike> likes);
+
     Collection<Film> getMostLiked(int count);
+
+    String getMostLikedVersionTag(int count);
+
+    Collection<Film> getMostLiked(int count, Integer genreId, Integer year, Integer mpaId);
+
+    String getMostLikedVersionTag(int count, Integer genreId, Integer year, Integer mpaId);
+
+    FilmFacets getPopularFacets(Integer genreId, Integer year, Integer mpaId);
+
+    Collection<Film> search(String query, int count);
+
+    Collection<Film> getTrending(Duration window, int count);
+
+    Collection<Film> getRecommendations(Long userId, int count);
 }
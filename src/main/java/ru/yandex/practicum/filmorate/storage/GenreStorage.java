@@ -8,4 +8,8 @@ public interface GenreStorage {
     Collection<Genre> findAll();
 
     Genre getById(Integer genreId);
+
+    String getVersionTag();
+
+    void refresh();
 }
@@ -8,4 +8,8 @@ public interface MpaRatingStorage {
     Collection<MpaRating> findAll();
 
     MpaRating getById(Integer mpaRatingId);
+
+    String getVersionTag();
+
+    void refresh();
 }
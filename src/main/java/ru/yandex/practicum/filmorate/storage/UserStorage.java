@@ -1,23 +1,35 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import ru.yandex.practicum.filmorate.model.Friendship;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface UserStorage {
     User create(User user);
 
+    List<User> createAll(List<User> users);
+
     User update(User user);
 
     Collection<User> findAll();
 
+    Collection<User> findPage(Long afterId, int size);
+
     User getById(Long id);
 
     void addFriend(Long userId, Long friendId);
 
     void deleteFriend(Long userId, Long friendId);
 
+    void addFriends(Long userId, Collection<Long> friendIds);
+
+    int[] addFriends(List<Friendship> friendships);
+
     Collection<User> getFriends(Long userId);
 
     Collection<User> getCommonFriends(Long userId, Long friendId);
+
+    Collection<User> getFriendSuggestions(Long userId, int count);
 }
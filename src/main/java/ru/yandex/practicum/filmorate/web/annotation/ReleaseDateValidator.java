@@ -27,7 +27,7 @@ public class ReleaseDateValidator implements ConstraintValidator<ValidReleaseDat
             return false;
         }
 
-        log.info("Дата релиза фильма: {} прошла валидацию", releaseDate);
+        log.debug("Дата релиза фильма: {} прошла валидацию", releaseDate);
         return true;
     }
 }
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.web.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Serialized JSON bodies of hot read endpoints. Every entry remembers the version tag of the data it was
+ * built from; a lookup with a different tag is a miss and replaces the entry, so any change that bumps
+ * a version (an update, a like that reorders the ranking, a dictionary refresh) invalidates exactly the
+ * affected responses, whichever code path made it. Size is bounded by the total number of cached bytes,
+ * evicted by Caffeine's W-TinyLFU policy. Version tags come from memory and are current as of the primary,
+ * so misses are loaded through {@code loads}, which keeps them off lagging read replicas when routing is on.
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class JsonResponseCache {
+
+    static final String SIZE = "filmorate.response.cache.size";
+    static final String WEIGHT = "filmorate.response.cache.bytes";
+    static final String EVICTIONS = "filmorate.response.cache.evictions";
+    static final String REQUESTS = "filmorate.response.cache.requests";
+
+    final ObjectMapper objectMapper;
+    final Function<Supplier<?>, ?> loads;
+    final Cache<String, CachedBody> cache;
+    final Counter hits;
+    final Counter misses;
+
+    public JsonResponseCache(ObjectMapper objectMapper, long maximumBytes, MeterRegistry registry) {
+        this(objectMapper, maximumBytes, registry, Supplier::get);
+    }
+
+    public JsonResponseCache(ObjectMapper objectMapper, long maximumBytes, MeterRegistry registry,
+                             Function<Supplier<?>, ?> loads) {
+        this.objectMapper = objectMapper;
+        this.loads = loads;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((String key, CachedBody value) -> key.length() + value.versionTag().length()
+                        + value.body().length)
+                .recordStats()
+                .build();
+
+        Gauge.builder(SIZE, cache, Cache::estimatedSize).register(registry);
+        Gauge.builder(WEIGHT, cache, c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder(EVICTIONS, cache, c -> c.stats().evictionCount()).register(registry);
+        this.hits = Counter.builder(REQUESTS).tag("result", "hit").register(registry);
+        this.misses = Counter.builder(REQUESTS).tag("result", "miss").register(registry);
+    }
+
+    /**
+     * Cached body of {@code key} if it was built for {@code versionTag}; otherwise serializes what
+     * {@code loader} returns and caches it. The tag must be taken before the data is loaded.
+     */
+    public byte[] get(String key, String versionTag, Supplier<?> loader) {
+        final CachedBody cached = cache.getIfPresent(key);
+        if (cached != null && cached.versionTag().equals(versionTag)) {
+            hits.increment();
+            return cached.body();
+        }
+        misses.increment();
+        final byte[] body = serialize(loads.apply(loader));
+        cache.put(key, new CachedBody(versionTag, body));
+        return body;
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record CachedBody(String versionTag, byte[] body) {
+    }
+}
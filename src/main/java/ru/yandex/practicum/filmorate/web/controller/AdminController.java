@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.web.controller;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.service.MpaRatingService;
+
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class AdminController {
+
+    final GenreService genreService;
+    final MpaRatingService mpaRatingService;
+
+    @PostMapping("/reference-data/refresh")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void refreshReferenceData() {
+        genreService.refresh();
+        mpaRatingService.refresh();
+    }
+}
@@ -1,5 +1,9 @@
 package ru.yandex.practicum.filmorate.web.controller;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -8,33 +12,49 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.yandex.practicum.filmorate.web.exception.ConditionsNotMetException;
 import ru.yandex.practicum.filmorate.web.exception.DatabaseException;
 import ru.yandex.practicum.filmorate.web.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.web.exception.ServiceOverloadedException;
 
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
 public class ErrorHandler {
 
+    final MeterRegistry registry;
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleConditionsNotMet(final ConditionsNotMetException e) {
+        countError(e);
         return new ErrorResponse("Ошибка со стороны пользователя", e.getMessage());
     }
 
     @ExceptionHandler
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleNotFound(final NotFoundException e) {
+        countError(e);
         return new ErrorResponse("Объект не найден", e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleOverloaded(final ServiceOverloadedException e) {
+        countError(e);
+        return new ErrorResponse("Сервис перегружен", e.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleException(final Exception e) {
+        countError(e);
         return new ErrorResponse("Произошла внутренняя ошибка сервера", e.getMessage());
     }
 
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleAnnotations(MethodArgumentNotValidException e) {
+        countError(e);
         String errorMessage = e.getBindingResult().getFieldErrors().stream()
                 .map(fieldError -> String.format("%s: %s", fieldError.getField(), fieldError.getDefaultMessage()))
                 .collect(Collectors.joining(", "));
@@ -44,6 +64,11 @@ public class ErrorHandler {
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleDatabase(DatabaseException e) {
+        countError(e);
         return new ErrorResponse("Произошла ошибка во время работы с базой данных", e.getMessage());
     }
+
+    private void countError(Exception e) {
+        registry.counter("filmorate.errors", "exception", e.getClass().getSimpleName()).increment();
+    }
 }
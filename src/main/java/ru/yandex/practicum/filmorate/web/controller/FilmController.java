@@ -1,10 +1,13 @@
 package ru.yandex.practicum.filmorate.web.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,8 +18,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.web.cache.JsonResponseCache;
 
 import java.util.Collection;
 
@@ -27,6 +34,8 @@ import java.util.Collection;
 public class FilmController {
 
     final FilmService filmService;
+    final ObjectMapper objectMapper;
+    final JsonResponseCache responseCache;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -40,13 +49,32 @@ public class FilmController {
     }
 
     @GetMapping
-    public Collection<Film> findAll() {
-        return filmService.findAll();
+    public Collection<Film> findAll(@RequestParam(required = false) Long after,
+                                   @RequestParam(required = false) Integer size) {
+        if (after == null && size == null) {
+            return filmService.findAll();
+        }
+        return filmService.findPage(after, size);
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return NdjsonResponse.of(objectMapper, filmService::forEach);
+    }
+
+    @GetMapping("/search")
+    public Collection<Film> search(@RequestParam String query,
+                                   @RequestParam(defaultValue = "10") int count) {
+        return filmService.search(query, count);
     }
 
     @GetMapping("/{id}")
-    public Film getById(@PathVariable Long id) {
-        return filmService.getById(id);
+    public ResponseEntity<byte[]> getById(@PathVariable Long id, WebRequest request) {
+        final String versionTag = filmService.getVersionTag(id);
+        if (request.checkNotModified(versionTag)) {
+            return null;
+        }
+        return json(responseCache.get("film:" + id, versionTag, () -> filmService.getById(id)));
     }
 
     @PutMapping("/{id}/like/{userId}")
@@ -62,7 +90,33 @@ public class FilmController {
     }
 
     @GetMapping("/popular")
-    public Collection<Film> getMostPopular(@RequestParam(defaultValue = "10") int count) {
-        return filmService.getMostLiked(count);
+    public ResponseEntity<byte[]> getMostPopular(@RequestParam(defaultValue = "10") int count,
+                                                 @RequestParam(required = false) Integer genreId,
+                                                 @RequestParam(required = false) Integer year,
+                                                 @RequestParam(required = false) Integer mpaId) {
+        final String versionTag = filmService.getMostLikedVersionTag(count, genreId, year, mpaId);
+        final String key = "popular:" + count + ":" + genreId + ":" + year + ":" + mpaId;
+        final byte[] body = responseCache.get(key, versionTag,
+                () -> filmService.getMostLiked(count, genreId, year, mpaId));
+        return json(body);
+    }
+
+    @GetMapping("/trending")
+    public Collection<Film> getTrending(@RequestParam(defaultValue = "24h") String window,
+                                        @RequestParam(defaultValue = "10") int count) {
+        return filmService.getTrending(window, count);
+    }
+
+    @GetMapping("/popular/facets")
+    public FilmFacets getPopularFacets(@RequestParam(required = false) Integer genreId,
+                                       @RequestParam(required = false) Integer year,
+                                       @RequestParam(required = false) Integer mpaId) {
+        return filmService.getPopularFacets(genreId, year, mpaId);
+    }
+
+    private static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
-}
\ No newline at end of file
+}
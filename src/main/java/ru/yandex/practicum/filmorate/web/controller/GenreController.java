@@ -3,14 +3,13 @@ package ru.yandex.practicum.filmorate.web.controller;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
-
-import java.util.Collection;
+import ru.yandex.practicum.filmorate.web.cache.JsonResponseCache;
 
 @RestController
 @RequestMapping("/genres")
@@ -19,14 +18,19 @@ import java.util.Collection;
 public class GenreController {
 
     final GenreService genreService;
+    final JsonResponseCache responseCache;
 
     @GetMapping
-    public Collection<Genre> findAll() {
-        return genreService.findAll();
+    public ResponseEntity<byte[]> findAll() {
+        final String versionTag = genreService.getVersionTag();
+        final byte[] body = responseCache.get("genres", versionTag, genreService::findAll);
+        return ReferenceResponse.of(versionTag, body);
     }
 
     @GetMapping("/{id}")
-    public Genre getById(@PathVariable Integer id) {
-        return genreService.getById(id);
+    public ResponseEntity<byte[]> getById(@PathVariable Integer id) {
+        final String versionTag = genreService.getVersionTag();
+        final byte[] body = responseCache.get("genre:" + id, versionTag, () -> genreService.getById(id));
+        return ReferenceResponse.of(versionTag, body);
     }
 }
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.web.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.service.ImportService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+@RestController
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ImportController {
+
+    final ImportService importService;
+    final ObjectMapper objectMapper;
+
+    @PostMapping(path = "/films/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ImportResult importFilms(InputStream body) throws IOException {
+        return importService.importFilms(rows(body));
+    }
+
+    @PostMapping(path = "/films/likes/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ImportResult importLikes(InputStream body) throws IOException {
+        return importService.importLikes(rows(body));
+    }
+
+    @PostMapping(path = "/users/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ImportResult importUsers(InputStream body) throws IOException {
+        return importService.importUsers(rows(body));
+    }
+
+    @PostMapping(path = "/users/friends/import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ImportResult importFriendships(InputStream body) throws IOException {
+        return importService.importFriendships(rows(body));
+    }
+
+    // a JSON array is unwrapped element by element, NDJSON is read as a sequence of root values
+    private Iterator<JsonNode> rows(InputStream body) throws IOException {
+        return objectMapper.readerFor(JsonNode.class).readValues(body);
+    }
+}
@@ -3,14 +3,13 @@ package ru.yandex.practicum.filmorate.web.controller;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import ru.yandex.practicum.filmorate.model.MpaRating;
 import ru.yandex.practicum.filmorate.service.MpaRatingService;
-
-import java.util.Collection;
+import ru.yandex.practicum.filmorate.web.cache.JsonResponseCache;
 
 @RestController
 @RequestMapping("/mpa")
@@ -19,14 +18,19 @@ import java.util.Collection;
 public class MpaRatingController {
 
     final MpaRatingService mpaRatingService;
+    final JsonResponseCache responseCache;
 
     @GetMapping
-    public Collection<MpaRating> findAll() {
-        return mpaRatingService.findAll();
+    public ResponseEntity<byte[]> findAll() {
+        final String versionTag = mpaRatingService.getVersionTag();
+        final byte[] body = responseCache.get("mpa-ratings", versionTag, mpaRatingService::findAll);
+        return ReferenceResponse.of(versionTag, body);
     }
 
     @GetMapping("/{id}")
-    public MpaRating getById(@PathVariable Integer id) {
-        return mpaRatingService.getById(id);
+    public ResponseEntity<byte[]> getById(@PathVariable Integer id) {
+        final String versionTag = mpaRatingService.getVersionTag();
+        final byte[] body = responseCache.get("mpa-rating:" + id, versionTag, () -> mpaRatingService.getById(id));
+        return ReferenceResponse.of(versionTag, body);
     }
 }
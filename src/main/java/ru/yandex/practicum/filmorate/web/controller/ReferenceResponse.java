@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.web.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+
+/**
+ * Genres and MPA ratings change only on an explicit refresh, so clients may reuse them for an hour without
+ * asking and then revalidate with the content-derived tag; a matching If-None-Match gets a 304 without a body.
+ * The body is already serialized JSON from the response cache.
+ */
+final class ReferenceResponse {
+
+    static final CacheControl CACHE_CONTROL = CacheControl.maxAge(Duration.ofHours(1)).cachePublic();
+
+    private ReferenceResponse() {
+    }
+
+    static ResponseEntity<byte[]> of(String versionTag, byte[] body) {
+        return ResponseEntity.ok()
+                .cacheControl(CACHE_CONTROL)
+                .eTag(versionTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+}
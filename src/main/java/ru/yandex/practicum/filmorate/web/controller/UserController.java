@@ -1,10 +1,12 @@
 package ru.yandex.practicum.filmorate.web.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -12,12 +14,17 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.Collection;
+import java.util.List;
 
 @RestController
 @RequestMapping("/users")
@@ -26,6 +33,8 @@ import java.util.Collection;
 public class UserController {
 
     final UserService userService;
+    final FilmService filmService;
+    final ObjectMapper objectMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -39,8 +48,17 @@ public class UserController {
     }
 
     @GetMapping
-    public Collection<User> findAll() {
-        return userService.findAll();
+    public Collection<User> findAll(@RequestParam(required = false) Long after,
+                                   @RequestParam(required = false) Integer size) {
+        if (after == null && size == null) {
+            return userService.findAll();
+        }
+        return userService.findPage(after, size);
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return NdjsonResponse.of(objectMapper, userService::forEach);
     }
 
     @GetMapping("/{id}")
@@ -54,6 +72,12 @@ public class UserController {
         userService.addFriend(id, friendId);
     }
 
+    @PutMapping("/{id}/friends")
+    public void addFriends(@PathVariable Long id,
+                           @RequestBody List<Long> friendIds) {
+        userService.addFriends(id, friendIds);
+    }
+
     @DeleteMapping("{id}/friends/{friendId}")
     public void deleteFriend(@PathVariable Long id,
                              @PathVariable Long friendId) {
@@ -70,4 +94,16 @@ public class UserController {
                                              @PathVariable Long friendId) {
         return userService.getCommonFriends(id, friendId);
     }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public Collection<User> getFriendSuggestions(@PathVariable Long id,
+                                                 @RequestParam(defaultValue = "10") int count) {
+        return userService.getFriendSuggestions(id, count);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public Collection<Film> getRecommendations(@PathVariable Long id,
+                                               @RequestParam(defaultValue = "10") int count) {
+        return filmService.getRecommendations(id, count);
+    }
 }
@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.web.exception;
+
+public class ServiceOverloadedException extends RuntimeException {
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
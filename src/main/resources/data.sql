@@ -1,14 +0,0 @@
-INSERT INTO mpa_rating (mpa_name) VALUES
-('G'),
-('PG'),
-('PG-13'),
-('R'),
-('NC-17');
-
-INSERT INTO genres (genre_name) VALUES
-('Комедия'),
-('Драма'),
-('Мультфильм'),
-('Триллер'),
-('Документальный'),
-('Боевик');
\ No newline at end of file
@@ -1,5 +1,3 @@
-DROP TABLE IF EXISTS mpa_rating, films, genres, film_genres, users, film_likes, user_friends;
-
 CREATE TABLE IF NOT EXISTS mpa_rating (
     mpa_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     mpa_name VARCHAR NOT NULL
@@ -51,4 +49,4 @@ CREATE TABLE IF NOT EXISTS user_friends (
     PRIMARY KEY (user_id, friend_id),
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
     FOREIGN KEY (friend_id) REFERENCES users(user_id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
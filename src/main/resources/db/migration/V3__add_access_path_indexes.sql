@@ -0,0 +1,9 @@
+-- H2 already backs every foreign key with a single-column index; these are composite so that
+-- the reverse lookups are answered from the index alone, without reading table rows.
+CREATE INDEX IF NOT EXISTS film_likes_user_film_idx ON film_likes (user_id, film_id);
+
+CREATE INDEX IF NOT EXISTS user_friends_friend_user_idx ON user_friends (friend_id, user_id);
+
+CREATE INDEX IF NOT EXISTS film_genres_genre_film_idx ON film_genres (genre_id, film_id);
+
+CREATE INDEX IF NOT EXISTS films_mpa_release_date_idx ON films (mpa_id, release_date);
@@ -0,0 +1,6 @@
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count BIGINT DEFAULT 0 NOT NULL;
+
+UPDATE films AS f
+SET likes_count = (SELECT COUNT(l.user_id) FROM film_likes AS l WHERE l.film_id = f.film_id);
+
+CREATE INDEX IF NOT EXISTS films_likes_count_idx ON films (likes_count DESC, film_id);
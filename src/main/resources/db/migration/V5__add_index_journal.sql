@@ -0,0 +1,17 @@
+-- Changes behind the in-memory indexes since the last index snapshot; written only while
+-- filmorate.index-snapshot.enabled is set and replayed on startup on top of the snapshot.
+-- kind: 1 - like (first_id film, second_id user), 2 - friendship (user, friend), 3 - film (film)
+CREATE TABLE IF NOT EXISTS index_journal (
+    seq LONG GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    kind TINYINT NOT NULL,
+    first_id LONG NOT NULL,
+    second_id LONG,
+    added BOOLEAN,
+    created_at TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL
+);
+
+-- the snapshot file that matches this database; a file with another id is stale
+CREATE TABLE IF NOT EXISTS index_snapshot (
+    snapshot_id UUID PRIMARY KEY,
+    journal_seq LONG NOT NULL
+);
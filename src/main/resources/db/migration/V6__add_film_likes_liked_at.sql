@@ -0,0 +1,6 @@
+-- when the like was made; likes made before this column existed keep NULL and are not counted as trending
+ALTER TABLE film_likes ADD COLUMN IF NOT EXISTS liked_at TIMESTAMP WITH TIME ZONE;
+
+ALTER TABLE film_likes ALTER COLUMN liked_at SET DEFAULT CURRENT_TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS film_likes_liked_at_idx ON film_likes (liked_at);
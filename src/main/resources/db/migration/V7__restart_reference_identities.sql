@@ -0,0 +1,5 @@
+-- V2 seeds the dictionaries with explicit ids, which does not advance the identity columns;
+-- without a restart the next generated id would collide with a seeded row
+ALTER TABLE mpa_rating ALTER COLUMN mpa_id RESTART WITH 6;
+
+ALTER TABLE genres ALTER COLUMN genre_id RESTART WITH 7;
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.yandex.practicum.filmorate.config.ConcurrencyLimitingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+class ConcurrencyLimitingDataSourceTest {
+
+    private DataSource target;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        target = Mockito.mock(DataSource.class);
+        Mockito.when(target.getConnection()).thenAnswer(invocation -> Mockito.mock(Connection.class));
+    }
+
+    @Test
+    void shouldReleasePermitOnClose() throws SQLException {
+        final ConcurrencyLimitingDataSource limited = new ConcurrencyLimitingDataSource(target, 1, Duration.ofSeconds(1));
+
+        final Connection connection = limited.getConnection();
+        Assertions.assertEquals(0, limited.getAvailablePermits());
+
+        connection.close();
+        Assertions.assertEquals(1, limited.getAvailablePermits());
+    }
+
+    @Test
+    void shouldReleasePermitOnceOnDoubleClose() throws SQLException {
+        final ConcurrencyLimitingDataSource limited = new ConcurrencyLimitingDataSource(target, 2, Duration.ofSeconds(1));
+
+        final Connection connection = limited.getConnection();
+        connection.close();
+        connection.close();
+
+        Assertions.assertEquals(2, limited.getAvailablePermits());
+    }
+
+    @Test
+    void shouldReleasePermitWhenCloseFails() throws SQLException {
+        final Connection failing = Mockito.mock(Connection.class);
+        Mockito.doThrow(new SQLException("close failed")).when(failing).close();
+        Mockito.when(target.getConnection()).thenReturn(failing);
+        final ConcurrencyLimitingDataSource limited = new ConcurrencyLimitingDataSource(target, 1, Duration.ofSeconds(1));
+
+        final Connection connection = limited.getConnection();
+        Assertions.assertThrows(SQLException.class, connection::close);
+
+        Assertions.assertEquals(1, limited.getAvailablePermits());
+    }
+
+    @Test
+    void shouldTimeOutWhenNoPermitIsAvailable() throws SQLException {
+        final ConcurrencyLimitingDataSource limited =
+                new ConcurrencyLimitingDataSource(target, 1, Duration.ofMillis(50));
+
+        try (Connection ignored = limited.getConnection()) {
+            Assertions.assertThrows(SQLTransientConnectionException.class, limited::getConnection);
+        }
+        Mockito.verify(target, Mockito.times(1)).getConnection();
+        Assertions.assertEquals(1, limited.getAvailablePermits());
+    }
+
+    @Test
+    void shouldReleasePermitWhenTargetFails() throws SQLException {
+        Mockito.when(target.getConnection())
+                .thenThrow(new SQLException("pool is down"))
+                .thenThrow(new IllegalStateException("pool is closed"));
+        final ConcurrencyLimitingDataSource limited = new ConcurrencyLimitingDataSource(target, 1, Duration.ofSeconds(1));
+
+        Assertions.assertThrows(SQLException.class, limited::getConnection);
+        Assertions.assertEquals(1, limited.getAvailablePermits());
+        Assertions.assertThrows(IllegalStateException.class, limited::getConnection);
+        Assertions.assertEquals(1, limited.getAvailablePermits());
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import ru.yandex.practicum.filmorate.config.CountingAsyncAppender;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+class CountingAsyncAppenderTest {
+
+    private final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+    @Test
+    void shouldCountEventsDroppedWhileTheConsumerIsStuck() throws InterruptedException {
+        final CountDownLatch taken = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AppenderBase<ILoggingEvent> stuck = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                taken.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        stuck.setContext(context);
+        stuck.start();
+        final CountingAsyncAppender appender = new CountingAsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(10);
+        appender.setNeverBlock(true);
+        appender.addAppender(stuck);
+        appender.start();
+        final long discarded = CountingAsyncAppender.getDiscardedCount();
+        final long queueFull = CountingAsyncAppender.getQueueFullCount();
+
+        appender.doAppend(event(Level.INFO));
+        Assertions.assertTrue(taken.await(5, TimeUnit.SECONDS));
+        // queue of 10, INFO is discarded once less than 10 / 5 slots are left
+        for (int i = 0; i < 9; i++) {
+            appender.doAppend(event(Level.WARN));
+        }
+        appender.doAppend(event(Level.INFO));
+        appender.doAppend(event(Level.WARN));
+        appender.doAppend(event(Level.WARN));
+        release.countDown();
+        appender.stop();
+
+        Assertions.assertEquals(1, CountingAsyncAppender.getDiscardedCount() - discarded);
+        Assertions.assertEquals(1, CountingAsyncAppender.getQueueFullCount() - queueFull);
+    }
+
+    private LoggingEvent event(Level level) {
+        return new LoggingEvent(getClass().getName(), context.getLogger("test"), level, "event", null, null);
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.config.DatabaseTuningConfig;
+import ru.yandex.practicum.filmorate.config.ResponseCacheConfig;
+
+import java.time.Duration;
+
+class DatabaseTuningConfigTest {
+
+    @Test
+    void shouldAppendH2SettingsUnlessAlreadyInUrl() {
+        DatabaseTuningConfig.H2TuningProperties properties = new DatabaseTuningConfig.H2TuningProperties();
+        properties.setCacheSize(DataSize.ofMegabytes(32));
+        properties.setQueryCacheSize(64);
+        properties.setWriteDelay(Duration.ofSeconds(2));
+        HikariDataSource dataSource = dataSource("jdbc:h2:mem:tuning;write_delay=100");
+
+        tuning(properties, new MockEnvironment()).postProcessBeforeInitialization(dataSource, "dataSource");
+
+        Assertions.assertEquals("jdbc:h2:mem:tuning;write_delay=100;CACHE_SIZE=32768;QUERY_CACHE_SIZE=64",
+                dataSource.getJdbcUrl());
+    }
+
+    @Test
+    void shouldRejectSeveralPerformanceProfiles() {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles("read-heavy", "low-memory");
+
+        Assertions.assertThrows(IllegalStateException.class, () -> tuning(new DatabaseTuningConfig.H2TuningProperties(),
+                environment).postProcessBeforeInitialization(dataSource("jdbc:h2:mem:tuning"), "dataSource"));
+    }
+
+    @Test
+    void shouldRejectMoreIdleConnectionsThanPoolSize() {
+        HikariDataSource dataSource = dataSource("jdbc:h2:mem:tuning");
+        dataSource.setMaximumPoolSize(4);
+        dataSource.setMinimumIdle(8);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> tuning(new DatabaseTuningConfig.H2TuningProperties(),
+                new MockEnvironment()).postProcessBeforeInitialization(dataSource, "dataSource"));
+    }
+
+    @Test
+    void shouldRejectCachesLargerThanHalfOfHeap() {
+        DatabaseTuningConfig.H2TuningProperties properties = new DatabaseTuningConfig.H2TuningProperties();
+        properties.setCacheSize(DataSize.ofBytes(Runtime.getRuntime().maxMemory()));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> tuning(properties, new MockEnvironment())
+                .postProcessBeforeInitialization(dataSource("jdbc:h2:mem:tuning"), "dataSource"));
+    }
+
+    private static BeanPostProcessor tuning(DatabaseTuningConfig.H2TuningProperties properties,
+                                            MockEnvironment environment) {
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("h2TuningProperties", properties);
+        beans.registerSingleton("responseCacheProperties", new ResponseCacheConfig.ResponseCacheProperties());
+        return DatabaseTuningConfig.h2Tuning(beans.getBeanProvider(DatabaseTuningConfig.H2TuningProperties.class),
+                beans.getBeanProvider(ResponseCacheConfig.ResponseCacheProperties.class), environment);
+    }
+
+    private static HikariDataSource dataSource(String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        return dataSource;
+    }
+}
@@ -1,27 +1,47 @@
 package ru.yandex.practicum.filmorate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.config.ResponseCacheConfig;
 import ru.yandex.practicum.filmorate.web.controller.FilmController;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(FilmController.class)
 @AutoConfigureMockMvc
+@Import({ResponseCacheConfig.class, SimpleMeterRegistry.class})
 public class FilmControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -116,4 +136,98 @@ public class FilmControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error").value("Ошибка валидации"));
     }
+
+    @Test
+    void shouldReturnFilmWithVersionTag() throws Exception {
+        when(filmService.getVersionTag(1L)).thenReturn("100-2");
+        when(filmService.getById(1L)).thenReturn(film);
+
+        mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"100-2\""))
+                .andExpect(jsonPath("$.name").value("Название"));
+    }
+
+    @Test
+    void shouldReturnNotModifiedWithoutLoadingFilm() throws Exception {
+        when(filmService.getVersionTag(1L)).thenReturn("100-2");
+
+        mockMvc.perform(get("/films/1").header("If-None-Match", "\"100-2\""))
+                .andExpect(status().isNotModified());
+        verify(filmService, never()).getById(anyLong());
+    }
+
+    @Test
+    void shouldServeCachedFilmUntilVersionChanges() throws Exception {
+        when(filmService.getVersionTag(1L)).thenReturn("100-2");
+        when(filmService.getById(1L)).thenReturn(film);
+
+        mockMvc.perform(get("/films/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Название"));
+        verify(filmService, times(1)).getById(1L);
+
+        when(filmService.getVersionTag(1L)).thenReturn("100-3");
+        mockMvc.perform(get("/films/1")).andExpect(status().isOk());
+        verify(filmService, times(2)).getById(1L);
+    }
+
+    @Test
+    void shouldReloadPopularFilmsWhenVersionChanges() throws Exception {
+        when(filmService.getMostLikedVersionTag(10, null, null, null)).thenReturn("100-1.0-a-b");
+        when(filmService.getMostLiked(10, null, null, null)).thenReturn(List.of(film));
+
+        mockMvc.perform(get("/films/popular")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/popular")).andExpect(status().isOk());
+        verify(filmService, times(1)).getMostLiked(10, null, null, null);
+
+        // a dictionary refresh changes only the reference data part of the tag
+        film.setName("Название после обновления справочника");
+        when(filmService.getMostLikedVersionTag(10, null, null, null)).thenReturn("100-1.0-c-b");
+        mockMvc.perform(get("/films/popular"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Название после обновления справочника"));
+        verify(filmService, times(2)).getMostLiked(10, null, null, null);
+    }
+
+    @Test
+    void shouldReturnPageAfterCursor() throws Exception {
+        Film next = new Film();
+        next.setId(2L);
+        next.setName("Продолжение");
+        when(filmService.findPage(0L, 2)).thenReturn(List.of(film, next));
+
+        mockMvc.perform(get("/films").param("after", "0").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[1].id").value(2));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldStreamFilmsAsNdjson() throws Exception {
+        Film next = new Film();
+        next.setId(2L);
+        next.setName("Продолжение");
+        doAnswer(invocation -> {
+            Consumer<Film> action = invocation.getArgument(0);
+            action.accept(film);
+            action.accept(next);
+            return null;
+        }).when(filmService).forEach(any(Consumer.class));
+
+        var started = mockMvc.perform(get("/films").param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        List<String> lines = body.lines().toList();
+        Assertions.assertEquals(2, lines.size());
+        Assertions.assertEquals(1L, objectMapper.readValue(lines.get(0), Film.class).getId());
+        Assertions.assertEquals(2L, objectMapper.readValue(lines.get(1), Film.class).getId());
+    }
 }
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.config.TrendingConfig;
+import ru.yandex.practicum.filmorate.dal.index.FilmTrendingIndex;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+class FilmTrendingIndexTest {
+
+    private static final Duration HOUR = Duration.ofHours(1);
+    private static final Duration THREE_HOURS = Duration.ofHours(3);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-01-01T10:00:00Z"));
+    private final FilmTrendingIndex index = new FilmTrendingIndex(null, properties(), clock);
+
+    @Test
+    void shouldCountLikesWithinEachWindow() {
+        final Instant start = clock.instant();
+        index.likeAdded(1L, start);
+        index.likeAdded(1L, start);
+        index.likeAdded(2L, start);
+
+        clock.advance(HOUR);
+        index.likeAdded(2L, clock.instant());
+        index.likeAdded(2L, clock.instant());
+
+        Assertions.assertEquals(List.of(2L), index.getTop(HOUR, 10));
+        Assertions.assertEquals(List.of(2L, 1L), index.getTop(THREE_HOURS, 10));
+
+        index.likeRemoved(2L, start);
+
+        Assertions.assertEquals(List.of(1L, 2L), index.getTop(THREE_HOURS, 10));
+        Assertions.assertEquals(List.of(1L), index.getTop(THREE_HOURS, 1));
+    }
+
+    @Test
+    void shouldDropLikesLeavingWindow() {
+        index.likeAdded(1L, clock.instant());
+        clock.advance(HOUR);
+        index.likeAdded(2L, clock.instant());
+        // removing a like without a time changes nothing
+        index.likeRemoved(2L, null);
+
+        clock.advance(Duration.ofHours(2));
+
+        Assertions.assertEquals(List.of(2L), index.getTop(THREE_HOURS, 10));
+        Assertions.assertEquals(List.of(), index.getTop(HOUR, 10));
+
+        clock.advance(Duration.ofHours(5));
+
+        Assertions.assertEquals(List.of(), index.getTop(THREE_HOURS, 10));
+    }
+
+    @Test
+    void shouldRejectWindowNotMultipleOfBucket() {
+        TrendingConfig.TrendingProperties properties = properties();
+        properties.setWindows(List.of(Duration.ofMinutes(90)));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> new FilmTrendingIndex(null, properties, clock));
+    }
+
+    private TrendingConfig.TrendingProperties properties() {
+        TrendingConfig.TrendingProperties properties = new TrendingConfig.TrendingProperties();
+        properties.setBucket(HOUR);
+        properties.setWindows(List.of(HOUR, THREE_HOURS));
+        return properties;
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -1,13 +1,34 @@
 package ru.yandex.practicum.filmorate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yandex.practicum.filmorate.config.IndexSnapshotConfig;
+import ru.yandex.practicum.filmorate.config.RecommendationConfig;
+import ru.yandex.practicum.filmorate.config.TrendingConfig;
+import ru.yandex.practicum.filmorate.dal.index.FilmCatalogIndex;
+import ru.yandex.practicum.filmorate.dal.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.dal.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.dal.index.FilmTrendingIndex;
+import ru.yandex.practicum.filmorate.dal.index.FilmVersions;
+import ru.yandex.practicum.filmorate.dal.index.FriendshipIndex;
+import ru.yandex.practicum.filmorate.dal.index.IndexJournal;
+import ru.yandex.practicum.filmorate.dal.index.IndexWarmStart;
+import ru.yandex.practicum.filmorate.dal.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.dal.index.UserIdIndex;
 import ru.yandex.practicum.filmorate.dal.mapper.FilmRowMapper;
 import ru.yandex.practicum.filmorate.dal.mapper.GenreRowMapper;
 import ru.yandex.practicum.filmorate.dal.mapper.MpaRatingRowMapper;
@@ -17,27 +38,49 @@ import ru.yandex.practicum.filmorate.dal.repository.GenreRepository;
 import ru.yandex.practicum.filmorate.dal.repository.MpaRatingRepository;
 import ru.yandex.practicum.filmorate.dal.repository.UserRepository;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmFacets;
+import ru.yandex.practicum.filmorate.model.FilmLike;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.MpaRating;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.GenreService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindQueue;
 import ru.yandex.practicum.filmorate.service.MpaRatingService;
 import ru.yandex.practicum.filmorate.service.UserService;
-
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.web.cache.JsonResponseCache;
+import ru.yandex.practicum.filmorate.web.controller.ErrorHandler;
+import ru.yandex.practicum.filmorate.web.controller.UserController;
+import ru.yandex.practicum.filmorate.web.exception.ConditionsNotMetException;
+import ru.yandex.practicum.filmorate.web.exception.DatabaseException;
+import ru.yandex.practicum.filmorate.web.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.web.exception.ServiceOverloadedException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
 @JdbcTest
 @AutoConfigureTestDatabase
 @RequiredArgsConstructor
 @ContextConfiguration(classes = {FilmRepository.class, FilmRowMapper.class, FilmService.class,
         UserRepository.class, UserRowMapper.class, UserService.class,
         GenreRepository.class, GenreService.class, GenreRowMapper.class,
-        MpaRatingService.class, MpaRatingRepository.class, MpaRatingRowMapper.class})
+        MpaRatingService.class, MpaRatingRepository.class, MpaRatingRowMapper.class,
+        FilmPopularityIndex.class, FilmCatalogIndex.class, FilmSearchIndex.class, FilmVersions.class,
+        FriendshipIndex.class, LikeMatrix.class, UserIdIndex.class, RecommendationConfig.class,
+        IndexJournal.class, IndexWarmStart.class, IndexSnapshotConfig.class, FilmTrendingIndex.class, TrendingConfig.class})
 
 class FilmorateApplicationTests {
 
@@ -53,6 +96,14 @@ class FilmorateApplicationTests {
     private FilmService filmService;
     @Autowired
     private GenreService genreService;
+    @Autowired
+    private MpaRatingService mpaRatingService;
+    @Autowired
+    private FilmRepository filmRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbc;
 
     @BeforeEach
     public void beforeEach() {
@@ -112,6 +163,42 @@ class FilmorateApplicationTests {
         Assertions.assertTrue(films.contains(film2));
     }
 
+    @Test
+    void findAllFilmsWithGenres() {
+        Film created1 = filmService.create(film1);
+        Film created2 = filmService.create(film2);
+
+        Collection<Film> films = filmService.findAll();
+        for (Film film : films) {
+            if (film.getId().equals(created1.getId())) {
+                Assertions.assertEquals(List.of(1, 2), film.getGenres().stream().map(Genre::getId).toList());
+            } else if (film.getId().equals(created2.getId())) {
+                Assertions.assertEquals(List.of(3, 4), film.getGenres().stream().map(Genre::getId).toList());
+            }
+        }
+    }
+
+    @Test
+    void testFindFilmsPageAcrossBoundary() {
+        Film film1 = filmService.create(this.film1);
+        Film film2 = filmService.create(this.film2);
+        Film film3 = filmService.create(makeFilm("film3", "film_3", LocalDate.of(2024, 3, 3), 80,
+                new MpaRating(1, "G"), new HashSet<>()));
+
+        List<Film> firstPage = List.copyOf(filmService.findPage(null, 2));
+        Assertions.assertEquals(List.of(film1, film2), firstPage);
+        Assertions.assertEquals(List.of(1, 2), firstPage.get(0).getGenres().stream().map(Genre::getId).toList());
+
+        Long cursor = firstPage.get(firstPage.size() - 1).getId();
+        Assertions.assertEquals(List.of(film3), List.copyOf(filmService.findPage(cursor, 2)));
+        Assertions.assertTrue(filmService.findPage(film3.getId(), 2).isEmpty());
+        Assertions.assertThrows(ConditionsNotMetException.class, () -> filmService.findPage(null, 0));
+
+        List<Film> streamed = new ArrayList<>();
+        filmService.forEach(streamed::add);
+        Assertions.assertEquals(List.of(film1, film2, film3), streamed);
+    }
+
     @Test
     void testGetFilmById() {
         Film createdFilm = filmService.create(film1);
@@ -119,6 +206,46 @@ class FilmorateApplicationTests {
         Assertions.assertEquals(createdFilm, foundFilm);
     }
 
+    @Test
+    void testUpdateReplacesGenresAndUnknownGenresAreRejected() {
+        Film film = filmService.create(film1);
+        Assertions.assertEquals("G", film.getMpa().getName());
+
+        film.setGenres(new HashSet<>(List.of(new Genre(4, null), new Genre(3, null))));
+        filmService.update(film);
+
+        Assertions.assertEquals(List.of(3, 4), filmService.getById(film.getId()).getGenres().stream().map(Genre::getId).toList());
+        Assertions.assertEquals("Мультфильм", film.getGenres().iterator().next().getName());
+
+        film.setGenres(new HashSet<>(List.of(new Genre(1, null), new Genre(100, null))));
+        Assertions.assertThrows(DatabaseException.class, () -> filmService.update(film));
+        Assertions.assertEquals(List.of(3, 4), filmService.getById(film.getId()).getGenres().stream().map(Genre::getId).toList());
+
+        int filmsBefore = filmService.findAll().size();
+        film2.setGenres(new HashSet<>(List.of(new Genre(100, null))));
+        Assertions.assertThrows(DatabaseException.class, () -> filmService.create(film2));
+        Assertions.assertEquals(filmsBefore, filmService.findAll().size());
+    }
+
+    @Test
+    void testFilmVersionTagChangesOnUpdate() {
+        Film film = filmService.create(film1);
+        String created = filmService.getVersionTag(film.getId());
+
+        Assertions.assertEquals(created, filmService.getVersionTag(film.getId()));
+
+        film.setName("film1 updated");
+        filmService.update(film);
+
+        Assertions.assertEquals(created, filmService.getVersionTag(film.getId()));
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        Assertions.assertNotEquals(created, filmService.getVersionTag(film.getId()));
+        Assertions.assertThrows(NotFoundException.class, () -> filmService.getVersionTag(-1L));
+    }
+
     @Test
     void testAddLike() {
         Film film = filmService.create(film1);
@@ -147,6 +274,307 @@ class FilmorateApplicationTests {
         Assertions.assertEquals(2, mostLikedFilms.size());
     }
 
+    @Test
+    void testMostLikedFilmsFollowLikeChanges() {
+        Film film1 = filmService.create(this.film1);
+        Film film2 = filmService.create(this.film2);
+
+        User user1 = userService.create(this.user1);
+        User user2 = userService.create(this.user2);
+
+        filmService.addLike(film1.getId(), user1.getId());
+        filmService.addLike(film2.getId(), user1.getId());
+        filmService.addLike(film2.getId(), user2.getId());
+
+        Assertions.assertEquals(List.of(film2, film1), List.copyOf(filmService.getMostLiked(2)));
+        Assertions.assertEquals(2L, getLikesCount(film2.getId()));
+
+        filmService.deleteLike(film2.getId(), user1.getId());
+        filmService.deleteLike(film2.getId(), user2.getId());
+
+        Assertions.assertEquals(List.of(film1), List.copyOf(filmService.getMostLiked(2)));
+        Assertions.assertEquals(0L, getLikesCount(film2.getId()));
+        Assertions.assertEquals(1L, getLikesCount(film1.getId()));
+    }
+
+    @Test
+    void testFilterMostLikedFilmsAndCountFacets() {
+        Film film1 = filmService.create(this.film1);
+        Film film2 = filmService.create(this.film2);
+        Film film3 = filmService.create(makeFilm("film3", "film_3", LocalDate.of(2023, 3, 3), 80,
+                new MpaRating(1, "G"), new HashSet<>(List.of(new Genre(1, "Комедия")))));
+        User user1 = userService.create(this.user1);
+        User user2 = userService.create(this.user2);
+
+        filmService.addLike(film1.getId(), user1.getId());
+        filmService.addLike(film2.getId(), user1.getId());
+        filmService.addLike(film3.getId(), user1.getId());
+        filmService.addLike(film3.getId(), user2.getId());
+
+        Assertions.assertEquals(List.of(film3, film1), List.copyOf(filmService.getMostLiked(10, 1, null, null)));
+        Assertions.assertEquals(List.of(film1), List.copyOf(filmService.getMostLiked(10, 1, 2024, 1)));
+        Assertions.assertEquals(List.of(film2), List.copyOf(filmService.getMostLiked(10, null, 2024, 2)));
+        Assertions.assertTrue(filmService.getMostLiked(10, null, 1999, null).isEmpty());
+        Assertions.assertThrows(NotFoundException.class, () -> filmService.getMostLiked(10, 100, null, null));
+        Assertions.assertThrows(ConditionsNotMetException.class, () -> filmService.getMostLiked(-5, null, null, null));
+        Assertions.assertThrows(ConditionsNotMetException.class,
+                () -> filmService.getMostLiked(Integer.MAX_VALUE, 1, null, null));
+
+        FilmFacets facets = filmService.getPopularFacets(1, null, null);
+        Assertions.assertEquals(2, facets.getTotal());
+        Assertions.assertEquals(List.of(1, 2), facets.getGenres().stream().map(b -> b.getValue().getId()).toList());
+        Assertions.assertEquals(List.of(2, 1), facets.getGenres().stream().map(FilmFacets.Bucket::getCount).toList());
+        Assertions.assertEquals(List.of(2023, 2024), facets.getYears().stream().map(FilmFacets.Bucket::getValue).toList());
+        Assertions.assertEquals(2, facets.getMpa().getFirst().getCount());
+
+        film1.setGenres(new HashSet<>(List.of(new Genre(3, "Мультфильм"))));
+        filmService.update(film1);
+
+        Assertions.assertEquals(List.of(film3), List.copyOf(filmService.getMostLiked(10, 1, null, null)));
+    }
+
+    @Test
+    void testSearchFilmsByNameAndDescription() {
+        Film film1 = filmService.create(makeFilm("Служебный роман", "Комедия о любовном треугольнике в статистическом учреждении",
+                LocalDate.of(1977, 10, 26), 159, new MpaRating(1, "G"), new HashSet<>()));
+        Film film2 = filmService.create(makeFilm("Любовь и голуби", "История о любви, семье и голубях",
+                LocalDate.of(1984, 1, 1), 107, new MpaRating(1, "G"), new HashSet<>()));
+        Film film3 = filmService.create(makeFilm("Ёлки", "Новогодняя комедия",
+                LocalDate.of(2010, 12, 16), 90, new MpaRating(1, "G"), new HashSet<>()));
+        User user1 = userService.create(this.user1);
+
+        Assertions.assertEquals(List.of(film2, film1), List.copyOf(filmService.search("любовью", 10)));
+        Assertions.assertEquals(List.of(film2), List.copyOf(filmService.search("ЛЮБОВЬ голуби", 10)));
+        Assertions.assertEquals(List.of(film3), List.copyOf(filmService.search("елки", 10)));
+        Assertions.assertEquals(List.of(film1), List.copyOf(filmService.search("служеб", 10)));
+        Assertions.assertTrue(filmService.search("триллер", 10).isEmpty());
+        Assertions.assertTrue(filmService.search("сем", 10).isEmpty());
+        Assertions.assertThrows(ConditionsNotMetException.class, () -> filmService.search("комедия", 1001));
+
+        filmService.addLike(film1.getId(), user1.getId());
+        Assertions.assertEquals(List.of(film1, film3), List.copyOf(filmService.search("комедия", 10)));
+
+        film3.setName("Ёлки 2");
+        film3.setDescription("Продолжение");
+        filmService.update(film3);
+        Assertions.assertEquals(List.of(film1), List.copyOf(filmService.search("комедия", 10)));
+    }
+
+    @Test
+    void testRecommendFilmsLikedByUsersWithOverlappingLikes() {
+        Film film1 = filmService.create(this.film1);
+        Film film2 = filmService.create(this.film2);
+        Film film3 = filmService.create(makeFilm("film3", "film_3", LocalDate.of(2024, 3, 3), 80,
+                new MpaRating(1, "G"), new HashSet<>()));
+        User user1 = userService.create(this.user1);
+        User user2 = userService.create(this.user2);
+        User user3 = userService.create(this.user3);
+
+        filmService.addLike(film1.getId(), user1.getId());
+        filmService.addLike(film1.getId(), user2.getId());
+        filmService.addLike(film2.getId(), user2.getId());
+        filmService.addLike(film3.getId(), user3.getId());
+
+        Assertions.assertEquals(List.of(film2), List.copyOf(filmService.getRecommendations(user1.getId(), 10)));
+
+        filmService.addLike(film2.getId(), user1.getId());
+
+        Assertions.assertTrue(filmService.getRecommendations(user1.getId(), 10).isEmpty());
+        Assertions.assertThrows(NotFoundException.class, () -> filmService.getRecommendations(-1L, 10));
+        Assertions.assertThrows(ConditionsNotMetException.class,
+                () -> filmService.getRecommendations(user1.getId(), Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testTrendingFilmsCountLikesWithinWindow() {
+        Film film1 = filmService.create(this.film1);
+        Film film2 = filmService.create(this.film2);
+        User user1 = userService.create(this.user1);
+        User user2 = userService.create(this.user2);
+
+        filmService.addLike(film1.getId(), user1.getId());
+        filmService.addLike(film2.getId(), user1.getId());
+        filmService.addLike(film2.getId(), user2.getId());
+        filmService.deleteLike(film2.getId(), user2.getId());
+        filmService.addLike(film1.getId(), user2.getId());
+
+        Assertions.assertEquals(List.of(film1, film2), List.copyOf(filmService.getTrending("24h", 10)));
+        Assertions.assertEquals(List.of(film1), List.copyOf(filmService.getTrending("1h", 1)));
+
+        filmService.deleteLike(film1.getId(), user1.getId());
+        filmService.deleteLike(film1.getId(), user2.getId());
+
+        Assertions.assertEquals(List.of(film2), List.copyOf(filmService.getTrending("7d", 10)));
+        Assertions.assertThrows(ConditionsNotMetException.class, () -> filmService.getTrending("2h", 10));
+        Assertions.assertThrows(ConditionsNotMetException.class, () -> filmService.getTrending("вчера", 10));
+        Assertions.assertThrows(ConditionsNotMetException.class, () -> filmService.getTrending("24h", 1001));
+    }
+
+    @Test
+    void testBulkDeleteLikesUncountsTrendingFilms() {
+        Film film1 = filmService.create(this.film1);
+        Film film2 = filmService.create(this.film2);
+        User user1 = userService.create(this.user1);
+        User user2 = userService.create(this.user2);
+        filmRepository.addLikes(List.of(
+                new FilmLike(film1.getId(), user1.getId()),
+                new FilmLike(film1.getId(), user2.getId()),
+                new FilmLike(film2.getId(), user1.getId())));
+
+        int[] deleted = filmRepository.deleteLikes(List.of(
+                new FilmLike(film1.getId(), user1.getId()),
+                new FilmLike(film2.getId(), user2.getId()),
+                new FilmLike(film1.getId(), user2.getId())));
+
+        Assertions.assertArrayEquals(new int[]{1, 0, 1}, deleted);
+        Assertions.assertEquals(0L, getLikesCount(film1.getId()));
+        Assertions.assertEquals(List.of(film2), List.copyOf(filmService.getTrending("24h", 10)));
+    }
+
+    @Test
+    void testBulkDeleteLikesTouchesOnlyListedPairs() {
+        Film film1 = filmService.create(this.film1);
+        Film film2 = filmService.create(this.film2);
+        User user1 = userService.create(this.user1);
+        User user2 = userService.create(this.user2);
+        filmRepository.addLikes(List.of(
+                new FilmLike(film1.getId(), user1.getId()),
+                new FilmLike(film1.getId(), user2.getId()),
+                new FilmLike(film2.getId(), user1.getId()),
+                new FilmLike(film2.getId(), user2.getId())));
+
+        // both films and both users are in the batch, but of the cross pairs only (film2, user1) is deleted
+        int[] deleted = filmRepository.deleteLikes(List.of(
+                new FilmLike(film1.getId(), user1.getId()),
+                new FilmLike(film2.getId(), user1.getId()),
+                new FilmLike(film1.getId(), user1.getId())));
+
+        Assertions.assertArrayEquals(new int[]{1, 1, 0}, deleted);
+        Assertions.assertEquals(List.of(user2.getId()), jdbc.queryForList(
+                "SELECT user_id FROM film_likes WHERE film_id = ?", Long.class, film1.getId()));
+        Assertions.assertEquals(List.of(user2.getId()), jdbc.queryForList(
+                "SELECT user_id FROM film_likes WHERE film_id = ?", Long.class, film2.getId()));
+        Assertions.assertEquals(1L, getLikesCount(film1.getId()));
+        Assertions.assertEquals(1L, getLikesCount(film2.getId()));
+        Assertions.assertEquals(2, filmService.getTrending("24h", 10).size());
+
+        filmRepository.deleteLikes(List.of(new FilmLike(film2.getId(), user2.getId())));
+        Assertions.assertEquals(List.of(film1), List.copyOf(filmService.getTrending("24h", 10)));
+    }
+
+    @Test
+    void testWriteBehindLikesAreCoalescedAndFlushedOnClose() throws InterruptedException {
+        Film film1 = filmService.create(this.film1);
+        Film film2 = filmService.create(this.film2);
+        User user1 = userService.create(this.user1);
+        User user2 = userService.create(this.user2);
+
+        LikeWriteBehindQueue queue = new LikeWriteBehindQueue(filmRepository, 100, 100,
+                Duration.ofHours(1), Duration.ZERO, new SimpleMeterRegistry());
+        queue.like(film1.getId(), user1.getId());
+        queue.like(film1.getId(), user2.getId());
+        queue.like(film2.getId(), user1.getId());
+        queue.unlike(film2.getId(), user1.getId());
+        queue.like(film1.getId(), user1.getId());
+
+        Assertions.assertEquals(3, queue.size());
+        Assertions.assertEquals(0L, getLikesCount(film1.getId()));
+
+        queue.close();
+
+        Assertions.assertEquals(List.of(film1), List.copyOf(filmService.getMostLiked(10)));
+        Assertions.assertEquals(2L, getLikesCount(film1.getId()));
+        Assertions.assertEquals(0L, getLikesCount(film2.getId()));
+    }
+
+    @Test
+    void testWriteBehindQueueRejectsWhenFull() throws InterruptedException {
+        LikeWriteBehindQueue queue = new LikeWriteBehindQueue(filmRepository, 1, 100,
+                Duration.ofHours(1), Duration.ZERO, new SimpleMeterRegistry());
+        queue.like(1L, 1L);
+        queue.unlike(1L, 1L);
+
+        Assertions.assertThrows(ServiceOverloadedException.class, () -> queue.like(2L, 1L));
+        queue.close();
+    }
+
+    @Test
+    void testWriteBehindQueueBacksOffAfterFailedFlush() throws InterruptedException {
+        FilmStorage failingStorage = Mockito.mock(FilmStorage.class);
+        Mockito.when(failingStorage.addLikes(Mockito.anyList()))
+                .thenThrow(new DataAccessResourceFailureException("База недоступна"));
+        LikeWriteBehindQueue queue = new LikeWriteBehindQueue(failingStorage, 100, 1,
+                Duration.ofMillis(10), Duration.ZERO, new SimpleMeterRegistry());
+        queue.like(1L, 1L);
+
+        Thread.sleep(500);
+        queue.close();
+
+        Mockito.verify(failingStorage, Mockito.atMost(5)).addLikes(Mockito.anyList());
+        Assertions.assertEquals(1, queue.size());
+    }
+
+    private long getLikesCount(Long filmId) {
+        return jdbc.queryForObject("SELECT likes_count FROM films WHERE film_id = ?", Long.class, filmId);
+    }
+
+    @Test
+    void testGetGenresFromDictionary() {
+        Assertions.assertEquals(6, genreService.findAll().size());
+        Assertions.assertEquals("Комедия", genreService.getById(1).getName());
+        Assertions.assertThrows(NotFoundException.class, () -> genreService.getById(100));
+    }
+
+    @Test
+    void testDictionaryRefreshChangesFilmVersionTags() {
+        Film film = filmService.create(film1);
+        filmService.addLike(film.getId(), userService.create(user1).getId());
+        JsonResponseCache cache = new JsonResponseCache(new ObjectMapper().findAndRegisterModules(), 1 << 20,
+                new SimpleMeterRegistry());
+        String filmTag = filmService.getVersionTag(film.getId());
+        String popularTag = filmService.getMostLikedVersionTag(10);
+        cache.get("film", filmTag, () -> filmService.getById(film.getId()));
+
+        try {
+            jdbc.update("UPDATE genres SET genre_name = 'Комедия (обновлено)' WHERE genre_id = 1");
+            genreService.refresh();
+
+            Assertions.assertNotEquals(filmTag, filmService.getVersionTag(film.getId()));
+            Assertions.assertNotEquals(popularTag, filmService.getMostLikedVersionTag(10));
+            String body = new String(cache.get("film", filmService.getVersionTag(film.getId()),
+                    () -> filmService.getById(film.getId())), StandardCharsets.UTF_8);
+            Assertions.assertTrue(body.contains("Комедия (обновлено)"));
+        } finally {
+            jdbc.update("UPDATE genres SET genre_name = 'Комедия' WHERE genre_id = 1");
+            genreService.refresh();
+        }
+    }
+
+    @Test
+    void testGeneratedDictionaryIdsFollowSeededRows() {
+        jdbc.update("INSERT INTO genres (genre_name) VALUES ('Фантастика')");
+        jdbc.update("INSERT INTO mpa_rating (mpa_name) VALUES ('UR')");
+
+        Assertions.assertTrue(jdbc.queryForObject(
+                "SELECT genre_id FROM genres WHERE genre_name = 'Фантастика'", Integer.class) > 6);
+        Assertions.assertTrue(jdbc.queryForObject(
+                "SELECT mpa_id FROM mpa_rating WHERE mpa_name = 'UR'", Integer.class) > 5);
+    }
+
+    @Test
+    void testDictionaryEntriesAreNotShared() {
+        genreService.getById(1).setName("Изменено");
+        genreService.findAll().iterator().next().setName("Изменено");
+        Film film = filmService.create(this.film1);
+        film.getGenres().forEach(genre -> genre.setName("Изменено"));
+        film.getMpa().setName("Изменено");
+
+        Assertions.assertEquals("Комедия", genreService.getById(1).getName());
+        Assertions.assertEquals("G", mpaRatingService.getById(1).getName());
+        Assertions.assertTrue(filmService.getById(film.getId()).getGenres().stream()
+                .noneMatch(genre -> genre.getName().equals("Изменено")));
+    }
+
     @Test
     void testCreateUser() {
         User createdUser = userService.create(user1);
@@ -179,6 +607,20 @@ class FilmorateApplicationTests {
         Assertions.assertTrue(users.contains(user2));
     }
 
+    @Test
+    void testFindUsersPage() {
+        User user1 = userService.create(this.user1);
+        User user2 = userService.create(this.user2);
+        User user3 = userService.create(this.user3);
+
+        Assertions.assertEquals(List.of(user1, user2), List.copyOf(userService.findPage(user1.getId() - 1, 2)));
+        Assertions.assertEquals(List.of(user3), List.copyOf(userService.findPage(user2.getId(), 2)));
+
+        List<User> streamed = new ArrayList<>();
+        userService.forEach(streamed::add);
+        Assertions.assertEquals(List.of(user1, user2, user3), streamed);
+    }
+
     @Test
     void testGetUserById() {
         User createdUser = userService.create(user1);
@@ -199,6 +641,31 @@ class FilmorateApplicationTests {
         Assertions.assertTrue(friendsUser1.contains(user2));
     }
 
+    @Test
+    void testAddFriendEndpointFallsBackToDatabase() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders
+                .standaloneSetup(new UserController(userService, filmService, new ObjectMapper()))
+                .setControllerAdvice(new ErrorHandler(new SimpleMeterRegistry()))
+                .build();
+        // inside the uncommitted test transaction the user is not in the id index yet
+        User user = userService.create(user1);
+        // created past the index, e.g. by another instance
+        jdbc.update("INSERT INTO users (email, login, user_name, birthday) VALUES ('other@mail.ru', 'other', 'other', ?)",
+                LocalDate.of(2000, 1, 1));
+        Long otherId = jdbc.queryForObject("SELECT user_id FROM users WHERE login = 'other'", Long.class);
+
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", user.getId(), otherId))
+                .andExpect(status().isOk());
+        Assertions.assertEquals(List.of(otherId),
+                userService.getFriends(user.getId()).stream().map(User::getId).toList());
+
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", user.getId(), 9999))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.description").value("Пользователь с id 9999 не найден"));
+        mockMvc.perform(put("/users/{id}/friends/{friendId}", 9999, otherId))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void testDeleteFriend() {
         User user1 = userService.create(this.user1);
@@ -225,6 +692,45 @@ class FilmorateApplicationTests {
         Assertions.assertTrue(friendsOfUser1.contains(user3));
     }
 
+    @Test
+    void testAddFriendsInBatch() {
+        User user1 = userService.create(this.user1);
+        User user2 = userService.create(this.user2);
+        User user3 = userService.create(this.user3);
+
+        userService.addFriend(user1.getId(), user2.getId());
+        userService.addFriends(user1.getId(), List.of(user2.getId(), user3.getId(), user3.getId()));
+        userService.addFriend(user1.getId(), user3.getId());
+
+        Assertions.assertEquals(List.of(user2, user3), List.copyOf(userService.getFriends(user1.getId())));
+    }
+
+    @Test
+    void testAddFriendsRejectsUnknownUsersBeforeWriting() {
+        User user1 = userService.create(this.user1);
+        User user2 = userService.create(this.user2);
+
+        Assertions.assertThrows(NotFoundException.class,
+                () -> userService.addFriends(user1.getId(), List.of(user2.getId(), -1L)));
+        Assertions.assertThrows(NotFoundException.class, () -> userService.addFriend(user1.getId(), -1L));
+        Assertions.assertThrows(ConditionsNotMetException.class,
+                () -> userService.addFriends(user1.getId(), List.of(user1.getId())));
+        Assertions.assertTrue(userService.getFriends(user1.getId()).isEmpty());
+    }
+
+    @Test
+    void testFriendsOfUsersCreatedPastTheIdIndex() {
+        User user1 = userService.create(this.user1);
+        jdbc.update("INSERT INTO users (email, login, user_name, birthday) VALUES (?, ?, ?, ?)",
+                "outside@gmail.com", "outside", "outside", LocalDate.of(2000, 1, 1));
+        Long outsideId = jdbc.queryForObject("SELECT user_id FROM users WHERE login = 'outside'", Long.class);
+
+        userService.addFriend(user1.getId(), outsideId);
+
+        Assertions.assertEquals(List.of(outsideId),
+                userService.getFriends(user1.getId()).stream().map(User::getId).toList());
+    }
+
     @Test
     void testGetCommonFriends() {
         User user1 = userService.create(this.user1);
@@ -239,4 +745,78 @@ class FilmorateApplicationTests {
 
         Assertions.assertTrue(commonFriends.contains(user3));
     }
+
+    @Test
+    void testFriendSuggestionsFollowFriendshipChanges() {
+        User user1 = userService.create(this.user1);
+        User user2 = userService.create(this.user2);
+        User user3 = userService.create(this.user3);
+
+        userService.addFriend(user1.getId(), user3.getId());
+        userService.addFriend(user2.getId(), user3.getId());
+
+        Assertions.assertEquals(List.of(user2), List.copyOf(userService.getFriendSuggestions(user1.getId(), 10)));
+
+        userService.addFriend(user1.getId(), user2.getId());
+
+        Assertions.assertTrue(userService.getFriendSuggestions(user1.getId(), 10).isEmpty());
+        Assertions.assertThrows(NotFoundException.class, () -> userService.getFriendSuggestions(-1L, 10));
+        Assertions.assertThrows(ConditionsNotMetException.class,
+                () -> userService.getFriendSuggestions(user1.getId(), Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testCommonFriendsFollowFriendshipChanges() {
+        User user1 = userService.create(this.user1);
+        User user2 = userService.create(this.user2);
+        User user3 = userService.create(this.user3);
+
+        userService.addFriend(user1.getId(), user3.getId());
+        userService.addFriend(user2.getId(), user3.getId());
+        userService.addFriend(user1.getId(), user2.getId());
+
+        Assertions.assertEquals(List.of(user3), List.copyOf(userService.getCommonFriends(user1.getId(), user2.getId())));
+
+        userService.deleteFriend(user2.getId(), user3.getId());
+
+        Assertions.assertTrue(userService.getCommonFriends(user1.getId(), user2.getId()).isEmpty());
+    }
+
+    @Test
+    void testBulkCreateFilmsUsersAndLikes() {
+        List<Film> films = filmRepository.createAll(new ArrayList<>(List.of(film1, film2)));
+        List<User> users = userRepository.createAll(new ArrayList<>(List.of(user1, user2)));
+
+        Assertions.assertNotNull(films.get(0).getId());
+        Assertions.assertEquals(films.get(0).getId() + 1, films.get(1).getId());
+        Assertions.assertEquals(List.of(1, 2),
+                filmService.getById(films.get(0).getId()).getGenres().stream().map(Genre::getId).toList());
+
+        int[] inserted = filmRepository.addLikes(List.of(
+                new FilmLike(films.get(1).getId(), users.get(0).getId()),
+                new FilmLike(films.get(1).getId(), users.get(1).getId()),
+                new FilmLike(films.get(1).getId(), users.get(1).getId()),
+                new FilmLike(films.get(0).getId(), -1L)));
+
+        Assertions.assertArrayEquals(new int[]{1, 1, 0, 0}, inserted);
+        Assertions.assertEquals(List.of(films.get(1)), List.copyOf(filmService.getMostLiked(10)));
+        Assertions.assertEquals(2L, getLikesCount(films.get(1).getId()));
+    }
+
+    @Test
+    void testBulkCreateChecksFilmsLikeSingleCreate() {
+        film1.setGenres(new HashSet<>(List.of(new Genre(2, null), new Genre(1, null))));
+        film1.setMpa(new MpaRating(1, null));
+        List<Film> films = filmRepository.createAll(new ArrayList<>(List.of(film1)));
+
+        Assertions.assertEquals("G", films.getFirst().getMpa().getName());
+        Assertions.assertEquals(List.of("Комедия", "Драма"),
+                films.getFirst().getGenres().stream().map(Genre::getName).toList());
+
+        int filmsBefore = filmService.findAll().size();
+        film2.setGenres(new HashSet<>(List.of(new Genre(100, null))));
+        Assertions.assertThrows(DatabaseException.class,
+                () -> filmRepository.createAll(new ArrayList<>(List.of(film2))));
+        Assertions.assertEquals(filmsBefore, filmService.findAll().size());
+    }
 }
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dal.index.FriendshipIndex;
+import ru.yandex.practicum.filmorate.dal.index.TopKSelector;
+
+import java.util.Comparator;
+import java.util.stream.LongStream;
+
+class FriendshipIndexTest {
+
+    @Test
+    void shouldSelectHighestScoresWithSmallerIdsFirstOnTies() {
+        TopKSelector top = new TopKSelector(3);
+        top.offer(10, 1);
+        top.offer(11, 5);
+        top.offer(12, 3);
+        top.offer(13, 5);
+        top.offer(9, 3);
+        top.offer(14, 2);
+
+        Assertions.assertArrayEquals(new long[]{11, 13, 9}, top.toArray());
+    }
+
+    @Test
+    void shouldSuggestUsersWithMostCommonFriendsOnLargeFanOut() {
+        FriendshipIndex index = new FriendshipIndex(null);
+        long userId = 1;
+        long[] friends = LongStream.rangeClosed(2, 201).toArray();
+        for (long friend : friends) {
+            index.friendAdded(userId, friend);
+        }
+        // candidate c has added the first 1 + (c - 1000) % 200 friends of the user
+        for (long candidate = 1000; candidate < 1600; candidate++) {
+            for (int i = 0; i < commonFriends(candidate); i++) {
+                index.friendAdded(candidate, friends[i]);
+            }
+        }
+        index.friendAdded(userId, 1599L);
+
+        long[] expected = LongStream.range(1000, 1599)
+                .boxed()
+                .sorted(Comparator.comparingLong(FriendshipIndexTest::commonFriends).reversed()
+                        .thenComparingLong(Long::longValue))
+                .limit(10)
+                .mapToLong(Long::longValue)
+                .toArray();
+
+        Assertions.assertArrayEquals(expected, index.suggestFriends(userId, 10));
+        Assertions.assertEquals(599, index.suggestFriends(userId, Integer.MAX_VALUE).length);
+        Assertions.assertEquals(0, index.suggestFriends(5000L, 10).length);
+
+        index.friendRemoved(userId, 1599L);
+        Assertions.assertTrue(LongStream.of(index.suggestFriends(userId, 3)).anyMatch(id -> id == 1599L));
+    }
+
+    private static long commonFriends(long candidate) {
+        return 1 + (candidate - 1000) % 200;
+    }
+}
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.service.ImportService;
+import ru.yandex.practicum.filmorate.web.controller.ImportController;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ImportController.class)
+@AutoConfigureMockMvc
+@Import(SimpleMeterRegistry.class)
+public class ImportControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ImportService importService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldPassNdjsonRowsToServiceAndReturnResult() throws Exception {
+        final List<JsonNode> received = new ArrayList<>();
+        when(importService.importUsers(any(Iterator.class))).thenAnswer(invocation -> {
+            Iterator<JsonNode> rows = invocation.getArgument(0);
+            rows.forEachRemaining(received::add);
+            return new ImportResult(2, 1, List.of(new ImportResult.RowError(1, "login: Логин не может быть пустым")));
+        });
+
+        mockMvc.perform(post("/users/import")
+                        .content("{\"login\": \"first\"}\n{\"login\": \"\"}\n")
+                        .contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received").value(2))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(1))
+                .andExpect(jsonPath("$.errors[0].message").value("login: Логин не может быть пустым"));
+
+        Assertions.assertEquals(2, received.size());
+        Assertions.assertEquals("first", received.getFirst().get("login").asText());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldUnwrapJsonArray() throws Exception {
+        final List<JsonNode> received = new ArrayList<>();
+        when(importService.importFilms(any(Iterator.class))).thenAnswer(invocation -> {
+            Iterator<JsonNode> rows = invocation.getArgument(0);
+            rows.forEachRemaining(received::add);
+            return new ImportResult(received.size(), received.size(), List.of());
+        });
+
+        mockMvc.perform(post("/films/import")
+                        .content("[{\"name\": \"a\"}, {\"name\": \"b\"}, {\"name\": \"c\"}]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(3));
+
+        Assertions.assertEquals(3, received.size());
+    }
+}
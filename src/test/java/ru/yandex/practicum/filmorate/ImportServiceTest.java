@@ -0,0 +1,147 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.config.IndexSnapshotConfig;
+import ru.yandex.practicum.filmorate.config.RecommendationConfig;
+import ru.yandex.practicum.filmorate.config.TrendingConfig;
+import ru.yandex.practicum.filmorate.dal.index.FilmCatalogIndex;
+import ru.yandex.practicum.filmorate.dal.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.dal.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.dal.index.FilmTrendingIndex;
+import ru.yandex.practicum.filmorate.dal.index.FilmVersions;
+import ru.yandex.practicum.filmorate.dal.index.FriendshipIndex;
+import ru.yandex.practicum.filmorate.dal.index.IndexJournal;
+import ru.yandex.practicum.filmorate.dal.index.IndexWarmStart;
+import ru.yandex.practicum.filmorate.dal.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.dal.index.UserIdIndex;
+import ru.yandex.practicum.filmorate.dal.mapper.FilmRowMapper;
+import ru.yandex.practicum.filmorate.dal.mapper.GenreRowMapper;
+import ru.yandex.practicum.filmorate.dal.mapper.MpaRatingRowMapper;
+import ru.yandex.practicum.filmorate.dal.mapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.dal.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.dal.repository.GenreRepository;
+import ru.yandex.practicum.filmorate.dal.repository.MpaRatingRepository;
+import ru.yandex.practicum.filmorate.dal.repository.UserRepository;
+import ru.yandex.practicum.filmorate.model.ImportResult;
+import ru.yandex.practicum.filmorate.service.ImportService;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Runs outside a test transaction: every chunk commits or rolls back on its own, as in production.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration({JacksonAutoConfiguration.class, ValidationAutoConfiguration.class})
+@ContextConfiguration(classes = {ImportService.class, FilmRepository.class, FilmRowMapper.class,
+        UserRepository.class, UserRowMapper.class, GenreRepository.class, GenreRowMapper.class,
+        MpaRatingRepository.class, MpaRatingRowMapper.class,
+        FilmPopularityIndex.class, FilmCatalogIndex.class, FilmSearchIndex.class, FilmVersions.class,
+        FriendshipIndex.class, LikeMatrix.class, UserIdIndex.class, RecommendationConfig.class,
+        IndexJournal.class, IndexWarmStart.class, IndexSnapshotConfig.class, FilmTrendingIndex.class,
+        TrendingConfig.class})
+class ImportServiceTest {
+
+    @Autowired
+    private ImportService importService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @AfterEach
+    void afterEach() {
+        jdbc.execute("ALTER TABLE users DROP CONSTRAINT IF EXISTS users_login_not_broken");
+        jdbc.update("DELETE FROM film_likes");
+        jdbc.update("DELETE FROM films");
+        jdbc.update("DELETE FROM users");
+    }
+
+    @Test
+    void shouldReportInvalidRowsAndImportTheRest() throws IOException {
+        ImportResult result = importService.importUsers(rows(
+                user("user0"),
+                user(" "),
+                user("user2").replace("2000-01-01", "not-a-date"),
+                user("user3")));
+
+        Assertions.assertEquals(4, result.getReceived());
+        Assertions.assertEquals(2, result.getImported());
+        Assertions.assertEquals(List.of(1, 2),
+                result.getErrors().stream().map(ImportResult.RowError::getRow).toList());
+        Assertions.assertEquals(List.of("user0", "user3"),
+                jdbc.queryForList("SELECT login FROM users ORDER BY user_id", String.class));
+    }
+
+    @Test
+    void shouldRetryRejectedChunkRowByRow() throws IOException {
+        jdbc.execute("ALTER TABLE users ADD CONSTRAINT users_login_not_broken CHECK (login <> 'broken')");
+
+        ImportResult result = importService.importUsers(rows(user("user0"), user("broken"), user("user2")));
+
+        Assertions.assertEquals(3, result.getReceived());
+        Assertions.assertEquals(2, result.getImported());
+        Assertions.assertEquals(1, result.getErrors().size());
+        Assertions.assertEquals(1, result.getErrors().getFirst().getRow());
+        Assertions.assertTrue(result.getErrors().getFirst().getMessage().startsWith("Ошибка записи в базу"));
+        Assertions.assertEquals(List.of("user0", "user2"),
+                jdbc.queryForList("SELECT login FROM users ORDER BY user_id", String.class));
+    }
+
+    @Test
+    void shouldWriteRowsBeyondOneChunk() throws IOException {
+        // one row more than ImportService.CHUNK_SIZE
+        ImportResult result = importService.importUsers(rows(IntStream.range(0, 1001)
+                .mapToObj(i -> user("user" + i))
+                .toArray(String[]::new)));
+
+        Assertions.assertEquals(1001, result.getImported());
+        Assertions.assertTrue(result.getErrors().isEmpty());
+        Assertions.assertEquals(1001, jdbc.queryForObject("SELECT COUNT(*) FROM users", Integer.class));
+    }
+
+    @Test
+    void shouldReportLikesThatWereNotWritten() throws IOException {
+        importService.importUsers(rows(user("user0")));
+        long userId = jdbc.queryForObject("SELECT user_id FROM users", Long.class);
+
+        ImportResult result = importService.importLikes(rows(
+                "{\"filmId\": -1, \"userId\": " + userId + "}",
+                "{\"filmId\": null, \"userId\": " + userId + "}"));
+
+        Assertions.assertEquals(0, result.getImported());
+        Assertions.assertEquals(List.of(1, 0),
+                result.getErrors().stream().map(ImportResult.RowError::getRow).toList());
+        Assertions.assertTrue(result.getErrors().getLast().getMessage().startsWith("Фильм или пользователь не найден"));
+    }
+
+    private Iterator<JsonNode> rows(String... rows) throws IOException {
+        return objectMapper.readerFor(JsonNode.class)
+                .readValues(Arrays.stream(rows).collect(Collectors.joining("\n")));
+    }
+
+    private static String user(String login) {
+        return String.format("{\"email\": \"%s@mail.ru\", \"login\": \"%s\", \"name\": \"%s\", \"birthday\": \"2000-01-01\"}",
+                login.isBlank() ? "blank" : login, login, login);
+    }
+}
@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.config.IndexSnapshotConfig;
+import ru.yandex.practicum.filmorate.config.RecommendationConfig;
+import ru.yandex.practicum.filmorate.dal.index.FilmCatalogIndex;
+import ru.yandex.practicum.filmorate.dal.index.FriendshipIndex;
+import ru.yandex.practicum.filmorate.dal.index.IndexJournal;
+import ru.yandex.practicum.filmorate.dal.index.IndexSnapshotProperties;
+import ru.yandex.practicum.filmorate.dal.index.IndexWarmStart;
+import ru.yandex.practicum.filmorate.dal.index.LikeMatrix;
+import ru.yandex.practicum.filmorate.dal.index.UserIdIndex;
+import ru.yandex.practicum.filmorate.dal.mapper.UserRowMapper;
+import ru.yandex.practicum.filmorate.dal.repository.UserRepository;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@ContextConfiguration(classes = {UserRepository.class, UserRowMapper.class, UserIdIndex.class,
+        FriendshipIndex.class, LikeMatrix.class, FilmCatalogIndex.class, RecommendationConfig.class,
+        IndexJournal.class, IndexWarmStart.class, IndexSnapshotConfig.class})
+class IndexWarmStartTest {
+
+    @Autowired
+    private IndexWarmStart warmStart;
+    @Autowired
+    private IndexSnapshotProperties properties;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private FriendshipIndex friendshipIndex;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @TempDir
+    private Path directory;
+
+    private long user1;
+    private long user2;
+    private long user3;
+
+    @BeforeEach
+    void beforeEach() throws IOException {
+        properties.setEnabled(true);
+        properties.setFile(directory.resolve("filmorate.indexes"));
+        properties.setInFlightMargin(Duration.ZERO);
+        user1 = createUser("user1");
+        user2 = createUser("user2");
+        user3 = createUser("user3");
+        userRepository.addFriend(user1, user2);
+        warmStart.writeSnapshot();
+    }
+
+    @AfterEach
+    void afterEach() {
+        warmStart.close();
+        properties.setEnabled(false);
+    }
+
+    @Test
+    void shouldLoadSnapshotAndReplayJournalledChanges() {
+        userRepository.addFriend(user1, user3);
+        // written past the journal, so only a rebuild from the tables would see it
+        jdbc.update("INSERT INTO user_friends (user_id, friend_id) VALUES (?, ?)", user2, user3);
+
+        warmStart.load();
+
+        Assertions.assertArrayEquals(new long[]{user2, user3}, friendshipIndex.getFriends(user1));
+        Assertions.assertArrayEquals(new long[0], friendshipIndex.getFriends(user2));
+    }
+
+    @Test
+    void shouldRebuildFromTablesWhenSnapshotIsCorrupted() throws IOException {
+        jdbc.update("INSERT INTO user_friends (user_id, friend_id) VALUES (?, ?)", user2, user3);
+        try (RandomAccessFile file = new RandomAccessFile(properties.getFile().toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            final int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 1);
+        }
+
+        warmStart.load();
+
+        Assertions.assertArrayEquals(new long[]{user2}, friendshipIndex.getFriends(user1));
+        Assertions.assertArrayEquals(new long[]{user3}, friendshipIndex.getFriends(user2));
+    }
+
+    private long createUser(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setName(login);
+        user.setEmail(login + "@gmail.com");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return userRepository.create(user).getId();
+    }
+}
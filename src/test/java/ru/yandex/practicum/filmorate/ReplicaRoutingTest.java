@@ -0,0 +1,189 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.config.JdbcConcurrencyConfig;
+import ru.yandex.practicum.filmorate.config.ReadYourWritesFilter;
+import ru.yandex.practicum.filmorate.config.ReplicaPool;
+import ru.yandex.practicum.filmorate.config.ReplicaRoutingConfig;
+import ru.yandex.practicum.filmorate.config.ReplicaRoutingDataSource;
+import ru.yandex.practicum.filmorate.web.cache.JsonResponseCache;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+class ReplicaRoutingTest {
+
+    private static final Duration WINDOW = Duration.ofSeconds(5);
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+    private ReplicaPool replicas;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        replicas = new ReplicaPool(List.of(replica), Duration.ofMinutes(1));
+        final var routed = ReplicaRoutingDataSource.route(primary, replicas, WINDOW);
+        jdbc = new JdbcTemplate(routed);
+        readOnly = new TransactionTemplate(new DataSourceTransactionManager(routed));
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        replicas.close();
+        primary.close();
+    }
+
+    @Test
+    void shouldReadFromReplicaAndWriteToPrimary() {
+        Assertions.assertEquals("replica", readOnly.execute(status -> readServer()));
+
+        jdbc.update("INSERT INTO server (name) VALUES ('written')");
+
+        Assertions.assertEquals(2, new JdbcTemplate(primary).queryForObject("SELECT COUNT(*) FROM server", Integer.class));
+        Assertions.assertEquals(1, new JdbcTemplate(replica).queryForObject("SELECT COUNT(*) FROM server", Integer.class));
+    }
+
+    @Test
+    void shouldReadOwnWritesFromPrimaryWithinWindow() throws Exception {
+        final ReadYourWritesFilter filter = new ReadYourWritesFilter(WINDOW);
+        final List<String> servers = new ArrayList<>();
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest(), response, (request, ignored) -> {
+            servers.add(readOnly.execute(status -> readServer()));
+            jdbc.update("INSERT INTO server (name) VALUES ('written')");
+            servers.add(readOnly.execute(status -> readServer()));
+        });
+        final Cookie window = response.getCookies()[0];
+        final MockHttpServletRequest nextRequest = new MockHttpServletRequest();
+        nextRequest.setCookies(window);
+        filter.doFilter(nextRequest, new MockHttpServletResponse(), (request, ignored) ->
+                servers.add(readOnly.execute(status -> readServer())));
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), (request, ignored) ->
+                servers.add(readOnly.execute(status -> readServer())));
+
+        Assertions.assertEquals(List.of("replica", "primary", "primary", "replica"), servers);
+    }
+
+    @Test
+    void shouldFailOverToPrimaryWhenReplicaIsDown() {
+        new JdbcTemplate(replica).execute("SHUTDOWN");
+        replica.close();
+        replicas.checkHealth();
+
+        Assertions.assertEquals(0, replicas.getHealthyCount());
+        Assertions.assertEquals("primary", readOnly.execute(status -> readServer()));
+    }
+
+    @Test
+    void shouldKeepBusyReplicaInRotation() throws Exception {
+        final HikariDataSource busy = database("busy", 1);
+        try (ReplicaPool pool = new ReplicaPool(List.of(busy), Duration.ofMinutes(1));
+             Connection ignored = busy.getConnection()) {
+            Assertions.assertNull(pool.getConnection());
+            Assertions.assertEquals(1, pool.getHealthyCount());
+        }
+    }
+
+    @Test
+    void shouldFailOverToPrimaryWhenReplicaPermitsAreExhausted() throws Exception {
+        final HikariDataSource limited = database("limited", 1);
+        final ReplicaRoutingConfig.ReplicaProperties replicaProperties = new ReplicaRoutingConfig.ReplicaProperties();
+        replicaProperties.setUrl(limited.getJdbcUrl());
+        final ReplicaRoutingConfig.ReplicaRoutingProperties properties = new ReplicaRoutingConfig.ReplicaRoutingProperties();
+        properties.setReplicas(List.of(replicaProperties));
+        properties.setMaximumPoolSize(1);
+        properties.setConnectionTimeout(Duration.ofMillis(100));
+        // the limiter of the primary keeps its default acquire timeout of a minute
+        final DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("jdbcConcurrencyProperties", new JdbcConcurrencyConfig.JdbcConcurrencyProperties());
+
+        try (ReplicaPool pool = new ReplicaRoutingConfig().replicaPool(properties,
+                beans.getBeanProvider(JdbcConcurrencyConfig.JdbcConcurrencyProperties.class),
+                beans.getBeanProvider(MeterRegistry.class));
+             Connection ignored = pool.getConnection()) {
+            final var routed = ReplicaRoutingDataSource.route(primary, pool, WINDOW);
+            final JdbcTemplate routedJdbc = new JdbcTemplate(routed);
+            final TransactionTemplate routedReadOnly = new TransactionTemplate(new DataSourceTransactionManager(routed));
+            routedReadOnly.setReadOnly(true);
+
+            final String server = Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                    routedReadOnly.execute(status -> routedJdbc.queryForObject(
+                            "SELECT name FROM server ORDER BY name LIMIT 1", String.class)));
+
+            Assertions.assertEquals("primary", server);
+            Assertions.assertEquals(1, pool.getHealthyCount());
+        } finally {
+            limited.close();
+        }
+    }
+
+    @Test
+    void shouldServeOtherUsersFromPrimary() throws Exception {
+        final DataSource other = Mockito.mock(DataSource.class);
+        final Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(other.getConnection("reader", "secret")).thenReturn(connection);
+
+        Assertions.assertSame(connection,
+                new ReplicaRoutingDataSource(other, replicas).getConnection("reader", "secret"));
+    }
+
+    @Test
+    void shouldLoadCachedResponsesFromPrimaryWhenReplicaLags() {
+        final JsonResponseCache cache = new JsonResponseCache(new ObjectMapper(), 1024, new SimpleMeterRegistry(),
+                ReplicaRoutingDataSource::onPrimary);
+        // the replica has not received this row yet
+        jdbc.update("INSERT INTO server (name) VALUES ('a-written')");
+
+        Assertions.assertEquals("replica", readOnly.execute(status -> readServer()));
+        final byte[] body = cache.get("server", "v2", () -> readOnly.execute(status -> readServer()));
+
+        Assertions.assertEquals("\"a-written\"", new String(body, StandardCharsets.UTF_8));
+        Assertions.assertEquals("replica", readOnly.execute(status -> readServer()));
+    }
+
+    private String readServer() {
+        return jdbc.queryForObject("SELECT name FROM server ORDER BY name LIMIT 1", String.class);
+    }
+
+    private static HikariDataSource database(String name) {
+        return database(name, 10);
+    }
+
+    private static HikariDataSource database(String name, int poolSize) {
+        final HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setConnectionTimeout(250);
+        final JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE server (name VARCHAR(20))");
+        jdbc.update("INSERT INTO server (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
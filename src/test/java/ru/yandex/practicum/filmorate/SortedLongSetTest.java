@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.dal.index.SortedLongSet;
+
+import java.util.stream.LongStream;
+
+class SortedLongSetTest {
+
+    @Test
+    void shouldKeepValuesSortedAndUnique() {
+        SortedLongSet set = new SortedLongSet();
+
+        Assertions.assertTrue(set.add(5));
+        Assertions.assertTrue(set.add(1));
+        Assertions.assertTrue(set.add(3));
+        Assertions.assertFalse(set.add(3));
+
+        Assertions.assertArrayEquals(new long[]{1, 3, 5}, set.toArray());
+        Assertions.assertTrue(set.remove(3));
+        Assertions.assertFalse(set.remove(3));
+        Assertions.assertArrayEquals(new long[]{1, 5}, set.toArray());
+    }
+
+    @Test
+    void shouldIntersectSetsOfSimilarAndDifferentSizes() {
+        SortedLongSet evens = of(LongStream.rangeClosed(1, 1000).filter(v -> v % 2 == 0).toArray());
+        SortedLongSet threes = of(LongStream.rangeClosed(1, 30).filter(v -> v % 3 == 0).toArray());
+        SortedLongSet fives = of(LongStream.rangeClosed(1, 1000).filter(v -> v % 5 == 0).toArray());
+
+        Assertions.assertArrayEquals(new long[]{6, 12, 18, 24, 30}, SortedLongSet.intersect(evens, threes));
+        Assertions.assertArrayEquals(LongStream.rangeClosed(1, 100).map(v -> v * 10).toArray(),
+                SortedLongSet.intersect(evens, fives));
+        Assertions.assertEquals(0, SortedLongSet.intersect(evens, null).length);
+    }
+
+    private SortedLongSet of(long... values) {
+        SortedLongSet set = new SortedLongSet();
+        for (long value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+}
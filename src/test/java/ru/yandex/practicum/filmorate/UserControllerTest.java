@@ -1,16 +1,19 @@
 package ru.yandex.practicum.filmorate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.yandex.practicum.filmorate.web.controller.UserController;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
@@ -22,6 +25,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(UserController.class)
 @AutoConfigureMockMvc
+@Import(SimpleMeterRegistry.class)
 public class UserControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -32,6 +36,8 @@ public class UserControllerTest {
     private UserStorage userStorage;
     @MockBean
     private UserService userService;
+    @MockBean
+    private FilmService filmService;
 
     private User user;
 
@@ -116,7 +122,7 @@ public class UserControllerTest {
 
     @Test
     void shouldThrowExceptionIfBirthdayInFuture() throws Exception {
-        user.setBirthday(LocalDate.of(2025,10,24));
+        user.setBirthday(LocalDate.now().plusYears(1));
         String jsonFilm = objectMapper.writeValueAsString(user);
 
         mockMvc.perform(post("/users")